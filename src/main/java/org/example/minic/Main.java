@@ -4,6 +4,12 @@ import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.concurrent.ForkJoinPool;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -15,9 +21,10 @@ import org.example.minic.semantics.CollectSymbols;
 import org.example.minic.semantics.SymbolTable;
 import org.example.minic.semantics.TypeChecker;
 import org.example.minic.semantics.CheckUses;
+import org.example.minic.ir.PackedTac;
 import org.example.minic.ir.TacGen;
 import org.example.minic.ir.TacProgram;
-import org.example.minic.ir.TacOptimizer;   // <-- NUEVO
+import org.example.minic.ir.PassManager;
 import org.example.minic.mips.MipsGen;
 
 public class Main {
@@ -27,6 +34,31 @@ public class Main {
         return (i <= 0) ? name : name.substring(0, i);
     }
 
+    private interface AsmBody {
+        void write(Writer w) throws IOException;
+    }
+
+    /**
+     * Escribe el .s con body: al archivo outPath (y después a stdout si
+     * toStdout) o, sin archivo, directo a stdout.
+     */
+    private static void writeAsm(Path outPath, boolean toStdout, AsmBody body) throws IOException {
+        if (outPath != null) {
+            try (Writer w = Files.newBufferedWriter(outPath, StandardCharsets.US_ASCII)) {
+                body.write(w);
+            }
+            if (toStdout) {
+                Files.copy(outPath, System.out);
+                System.out.println();
+            }
+        } else {
+            Writer w = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII));
+            body.write(w);
+            w.flush();
+            System.out.println();
+        }
+    }
+
     private static void usageAndExit() {
         System.err.println("Usage (required by spec):");
         System.err.println("  minicc <input.mc> -S -o <output.s> [-O] [--dump-ir]");
@@ -34,8 +66,22 @@ public class Main {
         System.err.println("Options:");
         System.err.println("  -S             : generate MIPS32 assembly (.s/.asm)");
         System.err.println("  -o <file>      : output assembly file (required when -S is used)");
-        System.err.println("  -O             : enable IR optimizations (TAC optimizer)");
+        System.err.println("  -O0            : no optimization (default)");
+        System.err.println("  -O, -O1        : folding, constants via reaching defs (rdconst), global CSE via");
+        System.err.println("                   available expressions (cse), dead-code elimination, and register allocation");
+        System.err.println("  -O2            : -O1 plus the SSA pipeline (sccp, copyprop, gvn, licm, ivsr, dce)");
+        System.err.println("  -O3            : -O2 with the scalar passes iterated to a fixed point");
+        System.err.println("  --passes=a,b,c : run exactly these passes, in order (implies register allocation)");
+        System.err.println("                   available: " + String.join(",", PassManager.registered()));
+        System.err.println("  --time-passes  : print wall time and instruction delta per pass (stderr)");
         System.err.println("  --dump-ir      : print TAC before and after optimization");
+        System.err.println("  --stats        : print backend statistics (loads/stores removed by the register allocator)");
+        System.err.println("  --share-slots  : reuse stack slots of names with disjoint live ranges (always on with -O)");
+        System.err.println("  --peephole     : peephole pass over the generated MIPS (always on with -O)");
+        System.err.println("  --pipeline     : compile one function at a time (TAC, passes, MIPS) and free it;");
+        System.err.println("                   ignored with --emit-tac/--dump-ir, which need the whole program");
+        System.err.println("  -j <n>         : type-check, optimize and generate functions on n threads");
+        System.err.println("                   (same output as -j 1; --pipeline only type-checks in parallel)");
         System.err.println();
         System.err.println("Legacy options (kept for compatibility):");
         System.err.println("  --dump-symbols : imprime scopes y símbolos");
@@ -52,8 +98,16 @@ public class Main {
         // Spec CLI: minicc input.mc -S -o output.s [-O] [--dump-ir]
         boolean emitAsmFile = false;     // -S
         String outAsm = null;            // -o
-        boolean optimize = false;        // -O
+        boolean optimize = false;        // -O1 o más, o --passes
+        int optLevel = 0;                // -O0..-O3 (-O = -O1)
+        String passSpec = null;          // --passes=a,b,c
+        boolean timePasses = false;      // --time-passes
         boolean dumpIr = false;          // --dump-ir
+        boolean stats = false;           // --stats
+        boolean shareSlots = false;      // --share-slots
+        boolean peephole = false;        // --peephole
+        boolean pipeline = false;        // --pipeline
+        int jobs = 1;                    // -j N
 
         // Legacy flags
         boolean dumpSymbols = false;
@@ -73,8 +127,25 @@ public class Main {
                     if (i + 1 >= args.length) usageAndExit();
                     outAsm = args[++i];
                 }
-                case "-O" -> optimize = true;
+                case "-j" -> {
+                    if (i + 1 >= args.length) usageAndExit();
+                    try {
+                        jobs = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException ex) {
+                        usageAndExit();
+                    }
+                    if (jobs < 1) usageAndExit();
+                }
+                case "-O0" -> optLevel = 0;
+                case "-O", "-O1" -> optLevel = 1;
+                case "-O2" -> optLevel = 2;
+                case "-O3" -> optLevel = 3;
+                case "--time-passes" -> timePasses = true;
                 case "--dump-ir" -> dumpIr = true;
+                case "--stats" -> stats = true;
+                case "--share-slots" -> shareSlots = true;
+                case "--peephole" -> peephole = true;
+                case "--pipeline" -> pipeline = true;
 
                 case "--dump-symbols" -> dumpSymbols = true;
                 case "--check-uses"   -> checkUses   = true;
@@ -84,17 +155,37 @@ public class Main {
 
 
                 default -> {
+                    if (a.startsWith("--passes=")) {
+                        passSpec = a.substring("--passes=".length());
+                        continue;
+                    }
                     if (a.startsWith("-")) usageAndExit();
                     pathStr = a;
                 }
             }
         }
+        optimize = optLevel > 0 || passSpec != null;
+
+        PassManager passes = null;
+        if (optimize) {
+            try {
+                passes = (passSpec != null) ? PassManager.parse(passSpec) : PassManager.forLevel(optLevel);
+            } catch (IllegalArgumentException ex) {
+                System.err.println(ex.getMessage());
+                System.exit(1);
+            }
+            passes.setTiming(timePasses);
+        }
 
         if (pathStr == null) usageAndExit();
         if (emitAsmFile && (outAsm == null || outAsm.isBlank())) {
             usageAndExit();
         }
 
+        // -j: tipos, pasadas y MipsGen reparten las funciones en el pool
+        // (sus hilos son daemon: no hace falta cerrarlo)
+        ForkJoinPool pool = (jobs > 1) ? new ForkJoinPool(jobs) : null;
+
         Path path = Paths.get(pathStr);
         CharStream input = CharStreams.fromPath(path);
 
@@ -130,8 +221,7 @@ public class Main {
                 }
 
                 // 3) Chequeo de tipos
-                TypeChecker typer = new TypeChecker(st, collector);
-                typer.visit(tree);
+                new TypeChecker(st, collector, pool).visit(tree);
 
                 // 4) Dump de símbolos
                 if (dumpSymbols) {
@@ -145,9 +235,41 @@ public class Main {
                     System.exit(3);
                 }
 
+                Path outPath = emitAsmFile ? Paths.get(outAsm) : null;
+
+                // 6') --pipeline: cada función pasa por TacGen, pasadas y MipsGen
+                //     y se suelta antes de la siguiente (memoria ~ la función más grande)
+                if (pipeline && (emitMipsStdout || emitAsmFile) && !emitTac && !dumpIr) {
+                    MipsGen mg = new MipsGen(optimize, optimize || shareSlots, optimize || peephole);
+                    PassManager pm = passes;
+                    TacGen gen = new TacGen(st, collector);
+                    gen.setFunctionSink(f -> {
+                        try {
+                            mg.emitFunction(pm != null ? pm.run(f, gen.getProgram()) : f);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                    writeAsm(outPath, emitMipsStdout, w -> {
+                        mg.beginProgram(w);
+                        gen.visit(tree);
+                        mg.endProgram(gen.getProgram().globals);
+                    });
+                    if (pm != null && timePasses) System.err.print(pm.timingReport());
+                    if (stats) {
+                        System.err.print(mg.getReport());
+                    }
+                    return;
+                }
+
                 // 6) Generación de IR (+ opcionalmente optimización)
                 if (emitTac || emitMipsStdout || emitAsmFile || dumpIr) {
                     TacGen gen = new TacGen(st, collector);
+                    // con pasadas, cada función espera al optimizador empaquetada
+                    // (--dump-ir necesita el TAC sin optimizar como TacFunction)
+                    if (passes != null && !dumpIr) {
+                        gen.setFunctionSink(f -> gen.getProgram().packed.add(PackedTac.pack(f)));
+                    }
                     gen.visit(tree);
                     TacProgram prog = gen.getProgram();
 
@@ -158,15 +280,19 @@ public class Main {
                     }
 
                     TacProgram finalProg = prog;
-                    if (optimize) {
-                        TacOptimizer opt = new TacOptimizer();
-                        finalProg = opt.optimize(prog);
+                    if (passes != null) {
+                        finalProg = (pool != null) ? passes.run(prog, pool) : passes.run(prog);
+                        if (timePasses) System.err.print(passes.timingReport());
                     }
 
                     if (dumpIr) {
                         System.out.println("=== TAC (after optimization) ===");
                         System.out.print(finalProg.toString());
                         if (!finalProg.toString().endsWith("\n")) System.out.println();
+                        if (passes != null) {
+                            passes.getChangeCounts().forEach((pass, n) ->
+                                    System.out.println("# " + pass + ": " + n + " changes"));
+                        }
                     }
 
                     if (emitTac) {
@@ -176,14 +302,16 @@ public class Main {
                     }
 
                     if (emitMipsStdout || emitAsmFile) {
-                        MipsGen mg = new MipsGen();
-                        String asm = mg.emitProgram(finalProg);
-                        if (emitMipsStdout) {
-                            System.out.println(asm);
+                        // el .s se escribe a medida que se genera cada función
+                        MipsGen mg = new MipsGen(optimize, optimize || shareSlots, optimize || peephole);
+                        TacProgram asmProg = finalProg;
+                        if (pool != null) {
+                            writeAsm(outPath, emitMipsStdout, w -> mg.emitProgram(asmProg, w, pool));
+                        } else {
+                            writeAsm(outPath, emitMipsStdout, w -> mg.emitProgram(asmProg, w));
                         }
-                        if (emitAsmFile) {
-                            Path outPath = Paths.get(outAsm);
-                            Files.writeString(outPath, asm, StandardCharsets.US_ASCII);
+                        if (stats) {
+                            System.err.print(mg.getReport());
                         }
                     }
                     return;
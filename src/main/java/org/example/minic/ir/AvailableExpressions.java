@@ -0,0 +1,131 @@
+package org.example.minic.ir;
+
+import org.example.minic.ir.Operand.Name;
+import org.example.minic.ir.ValueNumbering.Key;
+
+import java.util.*;
+
+/**
+ * Expresiones disponibles en cada bloque (hacia adelante, intersección).
+ * Una expresión es la ValueNumbering.Key de la instrucción (op y operandos
+ * tipados, con los conmutativos normalizados). Se mata al redefinir uno de sus
+ * operandos; los LOAD además con cualquier STORE o CALL.
+ */
+public final class AvailableExpressions {
+
+    private final Map<Key, Integer> index = new HashMap<>();
+    private final List<Key> exprs = new ArrayList<>();
+    private final Map<Name, Bits> usersOf = new HashMap<>();
+    private final Bits loads;
+    private final Dataflow.Result result;
+
+    public AvailableExpressions(ControlFlowGraph cfg) {
+        List<List<Name>> operands = new ArrayList<>();
+        for (BasicBlock b : cfg.blocks) {
+            for (TacInstr i : b.code) {
+                Key key = ValueNumbering.keyOf(i);
+                if (key == null || index.containsKey(key)) continue;
+                index.put(key, exprs.size());
+                exprs.add(key);
+                operands.add(i.uses());
+            }
+        }
+        int width = exprs.size();
+        loads = new Bits(width);
+        for (int k = 0; k < width; k++) {
+            if (exprs.get(k).op() == TacOp.LOAD) loads.set(k);
+            for (Name u : operands.get(k)) usersOf.computeIfAbsent(u, n -> new Bits(width)).set(k);
+        }
+        result = Dataflow.solve(cfg, new Problem(cfg, width));
+    }
+
+    public int size() {
+        return exprs.size();
+    }
+
+    public Key expr(int k) {
+        return exprs.get(k);
+    }
+
+    /** Índice de la expresión que calcula i, o -1. */
+    public int indexOf(TacInstr i) {
+        Key key = ValueNumbering.keyOf(i);
+        Integer k = (key == null) ? null : index.get(key);
+        return (k == null) ? -1 : k;
+    }
+
+    public Bits availableIn(BasicBlock b) {
+        return result.atEntry(b);
+    }
+
+    public Bits availableOut(BasicBlock b) {
+        return result.atExit(b);
+    }
+
+    /** ¿La expresión de i ya está calculada en todo camino que llega a b? */
+    public boolean isAvailableIn(BasicBlock b, TacInstr i) {
+        int k = indexOf(i);
+        return k >= 0 && availableIn(b).get(k);
+    }
+
+    /** Copia de lo disponible al empezar el código de b (después de sus phis), para recorrerlo con step. */
+    public Bits atCodeStart(BasicBlock b) {
+        Bits cur = availableIn(b).copy();
+        for (PhiNode p : b.phis) kill(cur, p.dest);
+        return cur;
+    }
+
+    /** Aplica a cur (disponibles antes de i) el efecto de i: genera su expresión y mata las que invalida. */
+    public void step(Bits cur, TacInstr i) {
+        int e = indexOf(i);
+        if (e >= 0) cur.set(e);
+        if (i.op == TacOp.STORE || i.op == TacOp.CALL) cur.andNot(loads);
+        kill(cur, i.def());
+    }
+
+    /** Quita de cur las expresiones que leen d (redefinido). */
+    private void kill(Bits cur, Name d) {
+        Bits users = (d == null) ? null : usersOf.get(d);
+        if (users != null) cur.andNot(users);
+    }
+
+    private final class Problem extends DataflowProblem.GenKill {
+        Problem(ControlFlowGraph cfg, int width) {
+            super(cfg, width);
+            for (BasicBlock b : cfg.blocks) {
+                Bits g = gen[b.id], kl = kill[b.id];
+                // un phi redefine su dest al entrar al bloque (en SSA, en cada vuelta del loop)
+                for (PhiNode p : b.phis) {
+                    Bits users = usersOf.get(p.dest);
+                    if (users != null) kl.or(users);
+                }
+                for (TacInstr i : b.code) {
+                    int e = indexOf(i);
+                    if (e >= 0) g.set(e);
+                    if (i.op == TacOp.STORE || i.op == TacOp.CALL) {
+                        g.andNot(loads);
+                        kl.or(loads);
+                    }
+                    Name d = i.def();
+                    Bits users = (d == null) ? null : usersOf.get(d);
+                    if (users != null) {
+                        g.andNot(users);
+                        kl.or(users);
+                    }
+                }
+            }
+        }
+
+        @Override public boolean forward() {
+            return true;
+        }
+
+        @Override public Meet meet() {
+            return Meet.INTERSECTION;
+        }
+
+        @Override public Bits boundary() {
+            return new Bits(width());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.minic.ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bloque básico del TAC: secuencia sin saltos internos.
+ * - El LABEL de entrada se guarda en label (no en code).
+ * - Si el bloque termina en GOTO/IFZ/IFNZ/RET, esa es la última instrucción.
+ * - fallThrough es el bloque al que se cae cuando el final no es GOTO/RET
+ *   (null = se sale de la función).
+ * - phis solo se usa mientras el CFG está en forma SSA.
+ */
+public class BasicBlock {
+    /** Posición en el layout del CFG (se renumera tras cambios estructurales). */
+    public int id;
+    public String label;
+    public final List<PhiNode> phis = new ArrayList<>();
+    public final List<TacInstr> code = new ArrayList<>();
+    public final List<BasicBlock> preds = new ArrayList<>();
+    public final List<BasicBlock> succs = new ArrayList<>();
+    public BasicBlock fallThrough;
+
+    public BasicBlock(int id) {
+        this.id = id;
+    }
+
+    public static boolean isTerminator(TacOp op) {
+        return op == TacOp.GOTO || op == TacOp.IFZ || op == TacOp.IFNZ || op == TacOp.RET;
+    }
+
+    /** Salto/ret final, o null si el bloque simplemente cae al siguiente. */
+    public TacInstr terminator() {
+        if (code.isEmpty()) return null;
+        TacInstr last = code.get(code.size() - 1);
+        return isTerminator(last.op) ? last : null;
+    }
+
+    /** Label destino del salto final (GOTO/IFZ/IFNZ), o null. */
+    public String jumpTarget() {
+        TacInstr t = terminator();
+        return (t == null) ? null : t.labelName();
+    }
+
+    public boolean canFallThrough() {
+        TacInstr t = terminator();
+        return t == null || t.op == TacOp.IFZ || t.op == TacOp.IFNZ;
+    }
+
+    public String name() {
+        return (label != null) ? label : "B" + id;
+    }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(name()).append(":  preds=[");
+        for (int k = 0; k < preds.size(); k++) sb.append(k == 0 ? "" : ", ").append(preds.get(k).name());
+        sb.append("] succs=[");
+        for (int k = 0; k < succs.size(); k++) sb.append(k == 0 ? "" : ", ").append(succs.get(k).name());
+        sb.append("]\n");
+        for (PhiNode p : phis) sb.append("    ").append(p).append("\n");
+        for (TacInstr i : code) sb.append("    ").append(i).append("\n");
+        return sb.toString();
+    }
+}
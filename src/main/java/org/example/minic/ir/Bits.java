@@ -0,0 +1,123 @@
+package org.example.minic.ir;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto de bits denso de tamaño fijo sobre long[] (para dataflow).
+ * Los índices van de 0 a size()-1; las operaciones binarias asumen
+ * conjuntos del mismo tamaño.
+ */
+public final class Bits {
+
+    private final long[] w;
+    private final int size;
+
+    public Bits(int size) {
+        this.size = size;
+        this.w = new long[(size + 63) >>> 6];
+    }
+
+    private Bits(Bits o) {
+        this.size = o.size;
+        this.w = o.w.clone();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean get(int i) {
+        return (w[i >>> 6] & (1L << i)) != 0;
+    }
+
+    public void set(int i) {
+        w[i >>> 6] |= 1L << i;
+    }
+
+    public void clear(int i) {
+        w[i >>> 6] &= ~(1L << i);
+    }
+
+    public void setAll() {
+        Arrays.fill(w, -1L);
+        int tail = size & 63;
+        if (tail != 0) w[w.length - 1] = (1L << tail) - 1;
+    }
+
+    public void clearAll() {
+        Arrays.fill(w, 0L);
+    }
+
+    public Bits copy() {
+        return new Bits(this);
+    }
+
+    public void copyFrom(Bits o) {
+        System.arraycopy(o.w, 0, w, 0, w.length);
+    }
+
+    public void or(Bits o) {
+        for (int k = 0; k < w.length; k++) w[k] |= o.w[k];
+    }
+
+    public void and(Bits o) {
+        for (int k = 0; k < w.length; k++) w[k] &= o.w[k];
+    }
+
+    public void andNot(Bits o) {
+        for (int k = 0; k < w.length; k++) w[k] &= ~o.w[k];
+    }
+
+    /** this = gen | (in &amp; ~kill). Devuelve true si this cambió. */
+    public boolean assignTransfer(Bits gen, Bits in, Bits kill) {
+        boolean changed = false;
+        for (int k = 0; k < w.length; k++) {
+            long v = gen.w[k] | (in.w[k] & ~kill.w[k]);
+            if (v != w[k]) {
+                w[k] = v;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public boolean isEmpty() {
+        for (long x : w) if (x != 0) return false;
+        return true;
+    }
+
+    public int cardinality() {
+        int n = 0;
+        for (long x : w) n += Long.bitCount(x);
+        return n;
+    }
+
+    /** Próximo bit en 1 desde from (inclusive), o -1. */
+    public int nextSetBit(int from) {
+        if (from >= size) return -1;
+        int k = from >>> 6;
+        long x = w[k] & (-1L << from);
+        while (true) {
+            if (x != 0) return (k << 6) + Long.numberOfTrailingZeros(x);
+            if (++k == w.length) return -1;
+            x = w[k];
+        }
+    }
+
+    @Override public boolean equals(Object o) {
+        return o instanceof Bits b && b.size == size && Arrays.equals(b.w, w);
+    }
+
+    @Override public int hashCode() {
+        return Arrays.hashCode(w);
+    }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(i);
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.minic.ir;
+
+import org.example.minic.ir.Operand.Name;
+
+import java.util.*;
+
+/**
+ * Eliminación global de subexpresiones comunes sobre TAC sin SSA, guiada por
+ * {@link AvailableExpressions}.
+ * - Un cómputo d = e es redundante si e está disponible justo antes de él.
+ * - Cada expresión con algún cómputo redundante recibe un temp h: después de
+ *   cada cómputo no redundante se agrega h = d, y el redundante pasa a d = h.
+ *   Todo camino pasa por un cómputo (y su copia) después de la última
+ *   redefinición de los operandos, así que h vale e en cada redundante.
+ * En forma SSA no hace nada: h tendría varias defs (ahí lo cubre gvn).
+ */
+public final class CommonSubexpressions {
+
+    private CommonSubexpressions() { }
+
+    /** Devuelve cuántos cómputos redundantes reemplazó. */
+    public static int run(ControlFlowGraph cfg) {
+        if (isSsa(cfg)) return 0;
+        AvailableExpressions ae = new AvailableExpressions(cfg);
+        if (ae.size() == 0) return 0;
+
+        boolean[][] redundant = new boolean[cfg.blocks.size()][];
+        Map<Integer, Name> holder = new HashMap<>();
+        for (BasicBlock b : cfg.blocks) {
+            redundant[b.id] = new boolean[b.code.size()];
+            Bits cur = ae.atCodeStart(b);
+            for (int k = 0; k < b.code.size(); k++) {
+                TacInstr i = b.code.get(k);
+                int e = ae.indexOf(i);
+                if (e >= 0 && cur.get(e)) {
+                    redundant[b.id][k] = true;
+                    holder.computeIfAbsent(e, x -> cfg.newTemp());
+                }
+                ae.step(cur, i);
+            }
+        }
+        if (holder.isEmpty()) return 0;
+
+        int n = 0;
+        for (BasicBlock b : cfg.blocks) {
+            List<TacInstr> out = new ArrayList<>(b.code.size());
+            for (int k = 0; k < b.code.size(); k++) {
+                TacInstr i = b.code.get(k);
+                Name h = holder.get(ae.indexOf(i));
+                if (h == null) {
+                    out.add(i);
+                } else if (redundant[b.id][k]) {
+                    out.add(TacInstr.mov(h, i.def()));
+                    n++;
+                } else {
+                    out.add(i);
+                    out.add(TacInstr.mov(i.def(), h));
+                }
+            }
+            b.code.clear();
+            b.code.addAll(out);
+        }
+        return n;
+    }
+
+    private static boolean isSsa(ControlFlowGraph cfg) {
+        for (BasicBlock b : cfg.blocks) {
+            if (!b.phis.isEmpty()) return true;
+            for (TacInstr i : b.code) {
+                if (i.def() != null && i.def().version() > 0) return true;
+            }
+        }
+        return false;
+    }
+}
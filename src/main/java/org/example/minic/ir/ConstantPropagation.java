@@ -0,0 +1,202 @@
+package org.example.minic.ir;
+
+import org.example.minic.ir.Operand.IntConst;
+import org.example.minic.ir.Operand.Name;
+
+import java.util.*;
+
+/**
+ * Sparse conditional constant propagation (Wegman &amp; Zadeck) sobre forma SSA.
+ * - Retícula por nombre: TOP (sin valor aún) &gt; constante &gt; BOTTOM.
+ * - Solo se evalúa lo alcanzable por aristas ejecutables; un IFZ/IFNZ con
+ *   condición constante marca una sola salida.
+ * Al final: los usos de constantes pasan a ser literales, se borran sus defs
+ * (y phis), los saltos con condición conocida se vuelven GOTO o desaparecen,
+ * y se eliminan los bloques que quedan muertos.
+ */
+public final class ConstantPropagation {
+
+    private static final Object BOTTOM = new Object();   // TOP = ausente del mapa
+
+    /** Lugar donde se lee un nombre: instrucción o phi de un bloque. */
+    private record Site(BasicBlock block, TacInstr instr, PhiNode phi) { }
+
+    private final ControlFlowGraph cfg;
+    private final Map<Name, Object> value = new HashMap<>();
+    private final Set<Name> defined = new HashSet<>();
+    private final Map<Name, List<Site>> users = new HashMap<>();
+    private final Map<PhiNode, BasicBlock> phiBlock = new IdentityHashMap<>();
+    private final Set<BasicBlock> execBlocks = new HashSet<>();
+    private final Set<List<BasicBlock>> execEdges = new HashSet<>();
+    private final Deque<BasicBlock[]> flowWork = new ArrayDeque<>();
+    private final Deque<Name> ssaWork = new ArrayDeque<>();
+
+    private ConstantPropagation(ControlFlowGraph cfg) {
+        this.cfg = cfg;
+    }
+
+    /** Corre SCCP sobre un CFG en SSA; devuelve cuántas instrucciones quitó. */
+    public static int run(ControlFlowGraph cfg) {
+        ConstantPropagation cp = new ConstantPropagation(cfg);
+        int before = cfg.instructionCount();
+        cp.index();
+        cp.solve();
+        cp.rewrite();
+        return before - cfg.instructionCount();
+    }
+
+    // ---------------- Análisis ----------------
+
+    private void index() {
+        for (BasicBlock b : cfg.blocks) {
+            for (PhiNode p : b.phis) {
+                defined.add(p.dest);
+                phiBlock.put(p, b);
+                for (Operand o : p.args.values()) {
+                    if (o instanceof Name a) users.computeIfAbsent(a, k -> new ArrayList<>()).add(new Site(b, null, p));
+                }
+            }
+            for (TacInstr i : b.code) {
+                if (i.def() != null) defined.add(i.def());
+                for (Name u : i.uses()) users.computeIfAbsent(u, k -> new ArrayList<>()).add(new Site(b, i, null));
+            }
+        }
+    }
+
+    private void solve() {
+        flowWork.add(new BasicBlock[]{null, cfg.entry()});
+        while (!flowWork.isEmpty() || !ssaWork.isEmpty()) {
+            while (!flowWork.isEmpty()) {
+                BasicBlock[] e = flowWork.poll();
+                BasicBlock from = e[0], to = e[1];
+                if (from != null && !execEdges.add(Arrays.asList(from, to))) continue;
+                if (execBlocks.add(to)) {
+                    for (PhiNode p : to.phis) visitPhi(p);
+                    for (TacInstr i : to.code) visitInstr(to, i);
+                    if (to.terminator() == null || to.terminator().op == TacOp.GOTO) addSuccs(to);
+                } else {
+                    for (PhiNode p : to.phis) visitPhi(p);
+                }
+            }
+            while (!ssaWork.isEmpty()) {
+                Name n = ssaWork.poll();
+                for (Site s : users.getOrDefault(n, List.of())) {
+                    if (!execBlocks.contains(s.block())) continue;
+                    if (s.phi() != null) visitPhi(s.phi());
+                    else visitInstr(s.block(), s.instr());
+                }
+            }
+        }
+    }
+
+    private void addSuccs(BasicBlock b) {
+        for (BasicBlock s : b.succs) flowWork.add(new BasicBlock[]{b, s});
+    }
+
+    private void visitPhi(PhiNode p) {
+        Object v = null;
+        for (Map.Entry<BasicBlock, Operand> e : p.args.entrySet()) {
+            if (!execEdges.contains(Arrays.asList(e.getKey(), phiBlock.get(p)))) continue;
+            v = meet(v, valueOf(e.getValue()));
+        }
+        update(p.dest, v);
+    }
+
+    private void visitInstr(BasicBlock b, TacInstr i) {
+        if (i.op == TacOp.IFZ || i.op == TacOp.IFNZ) {
+            Object c = valueOf(i.a);
+            if (c == null) return;
+            if (c == BOTTOM) {
+                addSuccs(b);
+                return;
+            }
+            boolean jump = (i.op == TacOp.IFZ) == ((Integer) c == 0);
+            BasicBlock target = cfg.blockOf(i.labelName());
+            flowWork.add(new BasicBlock[]{b, jump ? target : b.fallThrough});
+            return;
+        }
+        Name d = i.def();
+        if (d != null) update(d, evaluate(i));
+    }
+
+    private Object evaluate(TacInstr i) {
+        switch (i.op) {
+            case MOV:
+                return valueOf(i.a);
+            case NOT: {
+                Object a = valueOf(i.a);
+                if (a == null || a == BOTTOM) return a;
+                return ((Integer) a == 0) ? 1 : 0;
+            }
+            case LOAD:
+            case CALL:
+                return BOTTOM;
+            default: {
+                Object a = valueOf(i.a), b = valueOf(i.b);
+                if (a == BOTTOM || b == BOTTOM) return BOTTOM;
+                if (a == null || b == null) return null;
+                Integer v = TacOptimizer.eval(i.op, (Integer) a, (Integer) b);
+                return (v == null) ? BOTTOM : v;
+            }
+        }
+    }
+
+    /** Valor de un operando: literal, nombre ya evaluado o nombre nunca definido (BOTTOM). */
+    private Object valueOf(Operand s) {
+        if (Operand.isConst(s)) return Operand.constValue(s);
+        if (!(s instanceof Name n)) return BOTTOM;
+        if (!defined.contains(n)) return BOTTOM;
+        return value.get(n);
+    }
+
+    private static Object meet(Object x, Object y) {
+        if (x == null) return y;
+        if (y == null) return x;
+        if (x == BOTTOM || y == BOTTOM) return BOTTOM;
+        return x.equals(y) ? x : BOTTOM;
+    }
+
+    private void update(Name name, Object v) {
+        Object old = value.get(name);
+        Object nv = meet(old, v);
+        if (Objects.equals(old, nv)) return;
+        value.put(name, nv);
+        ssaWork.add(name);
+    }
+
+    // ---------------- Reescritura ----------------
+
+    private IntConst constOf(Operand name) {
+        Object v = value.get(name);
+        return (v instanceof Integer c && defined.contains(name)) ? Operand.of(c) : null;
+    }
+
+    private void rewrite() {
+        for (BasicBlock b : cfg.blocks) {
+            if (!execBlocks.contains(b)) continue;
+            b.phis.removeIf(p -> constOf(p.dest) != null);
+            for (PhiNode p : b.phis) {
+                p.args.replaceAll((pred, a) -> {
+                    IntConst c = (a instanceof Name) ? constOf(a) : null;
+                    return (c != null) ? c : a;
+                });
+            }
+            List<TacInstr> out = new ArrayList<>(b.code.size());
+            for (TacInstr i : b.code) {
+                Name d = i.def();
+                if (d != null && i.op != TacOp.CALL && constOf(d) != null) continue;
+                TacInstr n = i.mapUses(this::constOf);
+                if ((n.op == TacOp.IFZ || n.op == TacOp.IFNZ) && n.a instanceof IntConst c) {
+                    boolean jump = (n.op == TacOp.IFZ) == (c.value() == 0);
+                    if (jump) out.add(TacInstr.jump(n.labelName()));
+                    continue;
+                }
+                out.add(n);
+            }
+            b.code.clear();
+            b.code.addAll(out);
+        }
+        cfg.computeEdges();
+        cfg.removeUnreachable();
+    }
+}
@@ -0,0 +1,272 @@
+package org.example.minic.ir;
+
+import java.util.*;
+
+/**
+ * Grafo de flujo de control de una TacFunction.
+ * Los bloques se cortan en LABEL (inicio) y en GOTO/IFZ/IFNZ/RET (fin).
+ * El bloque de entrada nunca tiene label: si el código arranca con un LABEL
+ * se agrega un bloque vacío delante, así la entrada no tiene predecesores.
+ */
+public class ControlFlowGraph {
+
+    private final TacFunction fn;
+    /** Bloques en orden de layout; blocks.get(0) es la entrada. */
+    public final List<BasicBlock> blocks = new ArrayList<>();
+    private final Map<String, BasicBlock> byLabel = new HashMap<>();
+    private int labelSeq = 0;
+    private int tempSeq = -1;    // último id de temp en uso (se calcula al pedir el primero)
+    // estado de la construcción: bloque actual y si ya terminó en salto/ret
+    private BasicBlock cur;
+    private boolean closed;
+
+    private ControlFlowGraph(TacFunction fn) {
+        this.fn = fn;
+        cur = newBlock();
+        blocks.add(cur);
+    }
+
+    public TacFunction function() { return fn; }
+
+    public BasicBlock entry() { return blocks.get(0); }
+
+    public BasicBlock blockOf(String label) { return byLabel.get(label); }
+
+    /** Instrucciones más phis de todos los bloques. */
+    public int instructionCount() {
+        int n = 0;
+        for (BasicBlock b : blocks) n += b.code.size() + b.phis.size();
+        return n;
+    }
+
+    // ---------------- Construcción ----------------
+
+    public static ControlFlowGraph build(TacFunction f) {
+        ControlFlowGraph g = new ControlFlowGraph(f);
+        for (TacInstr i : f.code) g.append(i);
+        g.computeEdges();
+        return g;
+    }
+
+    private void append(TacInstr i) {
+        if (i.op == TacOp.LABEL) {
+            if (!closed && cur.code.isEmpty() && cur.label == null && cur != entry()) {
+                cur.label = i.labelName();
+            } else {
+                BasicBlock nb = newBlock();
+                nb.label = i.labelName();
+                if (cur.canFallThrough()) cur.fallThrough = nb;
+                blocks.add(nb);
+                cur = nb;
+            }
+            byLabel.put(i.labelName(), cur);
+            closed = false;
+            return;
+        }
+        if (closed) {
+            BasicBlock nb = newBlock();
+            if (cur.canFallThrough()) cur.fallThrough = nb;
+            blocks.add(nb);
+            cur = nb;
+            closed = false;
+        }
+        cur.code.add(i);
+        if (BasicBlock.isTerminator(i.op)) closed = true;
+    }
+
+    private BasicBlock newBlock() {
+        return new BasicBlock(blocks.size());
+    }
+
+    /** Recalcula preds/succs desde los saltos finales y fallThrough. */
+    public void computeEdges() {
+        for (BasicBlock b : blocks) {
+            b.preds.clear();
+            b.succs.clear();
+        }
+        for (BasicBlock b : blocks) {
+            if (b.canFallThrough() && b.fallThrough != null) b.succs.add(b.fallThrough);
+            String target = b.jumpTarget();
+            if (target != null) {
+                BasicBlock t = byLabel.get(target);
+                if (t != null && !b.succs.contains(t)) b.succs.add(t);
+            }
+        }
+        for (BasicBlock b : blocks) {
+            for (BasicBlock s : b.succs) s.preds.add(b);
+        }
+        // phis: descartar args de aristas que ya no existen
+        for (BasicBlock b : blocks) {
+            for (PhiNode p : b.phis) p.args.keySet().retainAll(b.preds);
+        }
+        for (int k = 0; k < blocks.size(); k++) blocks.get(k).id = k;
+    }
+
+    // ---------------- Recorridos ----------------
+
+    /** Bloques alcanzables desde la entrada en reverse postorder. */
+    public List<BasicBlock> reversePostOrder() {
+        List<BasicBlock> post = new ArrayList<>();
+        Set<BasicBlock> seen = new HashSet<>();
+        Deque<BasicBlock> stack = new ArrayDeque<>();
+        Deque<Integer> next = new ArrayDeque<>();
+        stack.push(entry());
+        next.push(0);
+        seen.add(entry());
+        while (!stack.isEmpty()) {
+            BasicBlock b = stack.peek();
+            int k = next.pop();
+            if (k < b.succs.size()) {
+                next.push(k + 1);
+                BasicBlock s = b.succs.get(k);
+                if (seen.add(s)) {
+                    stack.push(s);
+                    next.push(0);
+                }
+            } else {
+                stack.pop();
+                post.add(b);
+            }
+        }
+        Collections.reverse(post);
+        return post;
+    }
+
+    /** Elimina los bloques inalcanzables; true si quitó alguno. */
+    public boolean removeUnreachable() {
+        Set<BasicBlock> live = new HashSet<>(reversePostOrder());
+        if (live.size() == blocks.size()) return false;
+        blocks.removeIf(b -> !live.contains(b));
+        byLabel.values().removeIf(b -> !live.contains(b));
+        computeEdges();
+        return true;
+    }
+
+    // ---------------- Edición ----------------
+
+    /** Label nuevo, único dentro de la función. */
+    public String newLabel() {
+        String l;
+        do {
+            l = fn.name + "_bb" + (labelSeq++);
+        } while (byLabel.containsKey(l));
+        return l;
+    }
+
+    /** Temp nuevo, con id mayor que el de cualquier temp de la función. */
+    public Operand.Temp newTemp() {
+        if (tempSeq < 0) {
+            tempSeq = 0;
+            for (BasicBlock b : blocks) {
+                for (PhiNode p : b.phis) noteTemp(p.dest);
+                for (TacInstr i : b.code) {
+                    for (Operand.Name u : i.uses()) noteTemp(u);
+                    noteTemp(i.def());
+                }
+            }
+        }
+        return new Operand.Temp(tempSeq++);
+    }
+
+    private void noteTemp(Operand.Name n) {
+        if (n instanceof Operand.Temp t && t.id() >= tempSeq) tempSeq = t.id() + 1;
+    }
+
+    /**
+     * Inserta un bloque vacío en la arista from -> to y lo devuelve.
+     * Los phis de to pasan a recibir el valor desde el bloque nuevo.
+     */
+    public BasicBlock splitEdge(BasicBlock from, BasicBlock to) {
+        BasicBlock mid = new BasicBlock(blocks.size());
+        mid.fallThrough = to;
+        boolean viaFall = from.canFallThrough() && from.fallThrough == to;
+        redirectEdge(from, to, mid);
+        // por fall-through va justo después de from; si no, al final del layout
+        if (viaFall) blocks.add(blocks.indexOf(from) + 1, mid);
+        else blocks.add(mid);
+
+        for (PhiNode p : to.phis) {
+            Operand v = p.args.remove(from);
+            if (v != null) p.args.put(mid, v);
+        }
+        computeEdges();
+        return mid;
+    }
+
+    /**
+     * Hace que la arista from -> to vaya a nt (por fall-through y/o por el
+     * salto final). No toca phis ni recalcula aristas.
+     */
+    public void redirectEdge(BasicBlock from, BasicBlock to, BasicBlock nt) {
+        if (from.canFallThrough() && from.fallThrough == to) from.fallThrough = nt;
+        TacInstr t = from.terminator();
+        String target = from.jumpTarget();
+        if (target != null && byLabel.get(target) == to) {
+            String l = labelOf(nt);
+            TacInstr j = (t.op == TacOp.GOTO)
+                    ? TacInstr.jump(l)
+                    : new TacInstr(t.op, t.a, new Operand.Label(l), null);
+            from.code.set(from.code.size() - 1, j);
+        }
+    }
+
+    /** Bloque vacío nuevo justo antes de next en el layout, que cae en next. */
+    public BasicBlock insertBlockBefore(BasicBlock next) {
+        BasicBlock nb = new BasicBlock(blocks.size());
+        nb.fallThrough = next;
+        blocks.add(blocks.indexOf(next), nb);
+        return nb;
+    }
+
+    /** Label del bloque (se le asigna uno nuevo si no tenía). */
+    public String labelOf(BasicBlock b) {
+        if (b.label == null) {
+            b.label = newLabel();
+            byLabel.put(b.label, b);
+        }
+        return b.label;
+    }
+
+    // ---------------- Linearización ----------------
+
+    /**
+     * Vuelve a TAC lineal en el orden de blocks. Agrega GOTO donde el
+     * fall-through ya no es el bloque siguiente, quita GOTO al bloque
+     * siguiente y cierra con RET los bloques que se salen de la función.
+     */
+    public TacFunction toFunction() {
+        TacFunction out = new TacFunction(fn.name);
+        out.params.addAll(fn.params);
+
+        // primero asignar labels a los fall-through que van a necesitar GOTO
+        for (int k = 0; k < blocks.size(); k++) {
+            BasicBlock b = blocks.get(k);
+            BasicBlock next = (k + 1 < blocks.size()) ? blocks.get(k + 1) : null;
+            if (b.canFallThrough() && b.fallThrough != null && b.fallThrough != next) labelOf(b.fallThrough);
+        }
+
+        for (int k = 0; k < blocks.size(); k++) {
+            BasicBlock b = blocks.get(k);
+            BasicBlock next = (k + 1 < blocks.size()) ? blocks.get(k + 1) : null;
+            if (b.label != null) out.emit(TacInstr.label(b.label));
+            for (TacInstr i : b.code) {
+                if (i == b.terminator() && i.op == TacOp.GOTO && next != null && byLabel.get(i.labelName()) == next) continue;
+                out.emit(i);
+            }
+            if (!b.canFallThrough()) continue;
+            if (b.fallThrough == null) {
+                out.emit(new TacInstr(TacOp.RET, null, null, null));
+            } else if (b.fallThrough != next) {
+                out.emit(TacInstr.jump(b.fallThrough.label));
+            }
+        }
+        return out;
+    }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("cfg ").append(fn.name).append(":\n");
+        for (BasicBlock b : blocks) sb.append("  ").append(b);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.minic.ir;
+
+import org.example.minic.ir.Operand.Name;
+
+import java.util.*;
+
+/**
+ * Propagación de copias sobre forma SSA.
+ * - Cada {@code x = y} (y nombre o literal entero/char) se borra y los usos
+ *   de x pasan a leer y directamente (resolviendo cadenas x = y, y = z).
+ * - Un phi cuyos args son todos el mismo valor (o el propio dest) también
+ *   es una copia.
+ * En SSA cada nombre tiene una sola def, así que reemplazar es global y seguro.
+ */
+public final class CopyPropagation {
+
+    private CopyPropagation() { }
+
+    /** Devuelve cuántas copias (MOV o phi triviales) eliminó. */
+    public static int run(ControlFlowGraph cfg) {
+        Map<Operand, Operand> copyOf = new HashMap<>();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (BasicBlock b : cfg.blocks) {
+                for (PhiNode p : b.phis) {
+                    if (copyOf.containsKey(p.dest)) continue;
+                    Operand same = null;
+                    boolean trivial = true;
+                    for (Operand a : p.args.values()) {
+                        Operand v = resolve(copyOf, a);
+                        if (v.equals(p.dest)) continue;
+                        if (same == null) same = v;
+                        else if (!same.equals(v)) { trivial = false; break; }
+                    }
+                    if (trivial && same != null) {
+                        copyOf.put(p.dest, same);
+                        changed = true;
+                    }
+                }
+                for (TacInstr i : b.code) {
+                    if (i.op != TacOp.MOV || i.r == null || copyOf.containsKey(i.r)) continue;
+                    if (!isCopySource(i.a)) continue;
+                    Operand v = resolve(copyOf, i.a);
+                    if (v.equals(i.r)) continue;
+                    copyOf.put(i.r, v);
+                    changed = true;
+                }
+            }
+        }
+        if (copyOf.isEmpty()) return 0;
+
+        int removed = 0;
+        for (BasicBlock b : cfg.blocks) {
+            int n = b.phis.size() + b.code.size();
+            b.phis.removeIf(p -> copyOf.containsKey(p.dest));
+            b.code.removeIf(i -> i.op == TacOp.MOV && copyOf.containsKey(i.r));
+            removed += n - b.phis.size() - b.code.size();
+            for (PhiNode p : b.phis) p.args.replaceAll((pred, a) -> resolve(copyOf, a));
+            b.code.replaceAll(i -> i.mapUses(u -> resolve(copyOf, u)));
+        }
+        return removed;
+    }
+
+    private static boolean isCopySource(Operand s) {
+        return s instanceof Name || Operand.isConst(s);
+    }
+
+    private static Operand resolve(Map<Operand, Operand> copyOf, Operand s) {
+        Operand cur = s;
+        for (Operand next; (next = copyOf.get(cur)) != null; ) cur = next;
+        return cur;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.minic.ir;
+
+import java.util.*;
+
+/**
+ * Solver iterativo con worklist para un {@link DataflowProblem}.
+ * - Arranca con todos los bloques en la lista, en reverse postorder
+ *   (o su inverso para problemas hacia atrás), así los loops convergen rápido.
+ * - Un bloque vuelve a la lista cuando cambia el valor de algún vecino del
+ *   que depende.
+ * Los conjuntos se indexan por id de bloque: el CFG no debe cambiar de
+ * estructura mientras se usa el resultado.
+ */
+public final class Dataflow {
+
+    /** Valores al inicio y al final de cada bloque (en orden de programa). */
+    public static final class Result {
+        private final Bits[] entry, exit;
+
+        private Result(Bits[] entry, Bits[] exit) {
+            this.entry = entry;
+            this.exit = exit;
+        }
+
+        public Bits atEntry(BasicBlock b) {
+            return entry[b.id];
+        }
+
+        public Bits atExit(BasicBlock b) {
+            return exit[b.id];
+        }
+    }
+
+    private Dataflow() { }
+
+    public static Result solve(ControlFlowGraph cfg, DataflowProblem p) {
+        int n = cfg.blocks.size();
+        Bits[] in = new Bits[n], out = new Bits[n];   // en el sentido del análisis
+        for (int k = 0; k < n; k++) {
+            in[k] = p.initial();
+            out[k] = p.initial();
+        }
+
+        List<BasicBlock> order = new ArrayList<>(cfg.reversePostOrder());
+        Set<BasicBlock> seen = new HashSet<>(order);
+        for (BasicBlock b : cfg.blocks) if (!seen.contains(b)) order.add(b);
+        if (!p.forward()) Collections.reverse(order);
+
+        Deque<BasicBlock> work = new ArrayDeque<>(order);
+        boolean[] queued = new boolean[n];
+        Arrays.fill(queued, true);
+        Bits tmp = new Bits(p.width());
+        boolean union = p.meet() == DataflowProblem.Meet.UNION;
+
+        while (!work.isEmpty()) {
+            BasicBlock b = work.poll();
+            queued[b.id] = false;
+
+            List<BasicBlock> sources = p.forward() ? b.preds : b.succs;
+            Bits x = in[b.id];
+            boolean atBoundary = p.forward() ? b == cfg.entry() : b.succs.isEmpty();
+            if (atBoundary) {
+                x.copyFrom(p.boundary());
+            } else if (!sources.isEmpty()) {
+                boolean first = true;
+                for (BasicBlock s : sources) {
+                    Bits v = out[s.id];
+                    if (p.hasEdgeTransfer()) {
+                        tmp.copyFrom(v);
+                        if (p.forward()) p.edgeTransfer(s, b, tmp);
+                        else p.edgeTransfer(b, s, tmp);
+                        v = tmp;
+                    }
+                    if (first) x.copyFrom(v);
+                    else if (union) x.or(v);
+                    else x.and(v);
+                    first = false;
+                }
+            }
+
+            if (!p.transfer(b, x, out[b.id])) continue;
+            for (BasicBlock d : p.forward() ? b.succs : b.preds) {
+                if (!queued[d.id]) {
+                    queued[d.id] = true;
+                    work.add(d);
+                }
+            }
+        }
+        return p.forward() ? new Result(in, out) : new Result(out, in);
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.minic.ir;
+
+/**
+ * Problema de dataflow por bloques sobre conjuntos Bits, resuelto por
+ * {@link Dataflow#solve}.
+ * - forward: el valor fluye de la entrada a la salida de cada bloque
+ *   (si no, de la salida a la entrada).
+ * - meet: unión (may) o intersección (must) de los valores que llegan.
+ * - transfer: valor al final de recorrer el bloque en el sentido del análisis.
+ */
+public interface DataflowProblem {
+
+    enum Meet { UNION, INTERSECTION }
+
+    boolean forward();
+
+    Meet meet();
+
+    /** Cantidad de bits de cada conjunto. */
+    int width();
+
+    /** Valor en la entrada de la función (forward) o en las salidas (backward). */
+    Bits boundary();
+
+    /** Valor inicial del resto: vacío para unión, todo para intersección. */
+    default Bits initial() {
+        Bits b = new Bits(width());
+        if (meet() == Meet.INTERSECTION) b.setAll();
+        return b;
+    }
+
+    /** out = f_b(in), en el sentido del análisis. Devuelve true si out cambió. */
+    boolean transfer(BasicBlock b, Bits in, Bits out);
+
+    /** true si edgeTransfer hace algo (si no, el solver se ahorra la copia). */
+    default boolean hasEdgeTransfer() {
+        return false;
+    }
+
+    /**
+     * Ajusta el valor v que cruza la arista from -&gt; to (en el sentido del
+     * CFG, no del análisis), p.ej. los args de phi en liveness.
+     */
+    default void edgeTransfer(BasicBlock from, BasicBlock to, Bits v) { }
+
+    /**
+     * Problema gen/kill clásico: f_b(x) = gen_b | (x &amp; ~kill_b),
+     * con gen y kill indexados por id de bloque.
+     */
+    abstract class GenKill implements DataflowProblem {
+        protected final Bits[] gen, kill;
+        private final int width;
+
+        protected GenKill(ControlFlowGraph cfg, int width) {
+            this.width = width;
+            int n = cfg.blocks.size();
+            gen = new Bits[n];
+            kill = new Bits[n];
+            for (int k = 0; k < n; k++) {
+                gen[k] = new Bits(width);
+                kill[k] = new Bits(width);
+            }
+        }
+
+        @Override public int width() {
+            return width;
+        }
+
+        @Override public boolean transfer(BasicBlock b, Bits in, Bits out) {
+            return out.assignTransfer(gen[b.id], in, kill[b.id]);
+        }
+    }
+}
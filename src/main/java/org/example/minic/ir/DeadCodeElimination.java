@@ -0,0 +1,101 @@
+package org.example.minic.ir;
+
+import org.example.minic.ir.Operand.Name;
+
+import java.util.*;
+
+/**
+ * Eliminación de código muerto guiada por liveness ({@link Liveness}) sobre el CFG.
+ * - Una instrucción sin efectos cuyo def no está vivo a la salida se borra.
+ * - CALL, STORE, PARAM, RET y saltos nunca se borran; a un CALL con
+ *   resultado muerto solo se le quita el destino.
+ * - Sirve con y sin SSA: los args de un phi se leen al final del pred y su
+ *   dest se define al entrar al bloque.
+ * Se repite hasta que no cambia nada (borrar un def puede matar sus operandos).
+ */
+public final class DeadCodeElimination {
+
+    private DeadCodeElimination() { }
+
+    static boolean hasSideEffects(TacOp op) {
+        return switch (op) {
+            case CALL, STORE, PARAM, RET, IFZ, IFNZ, GOTO, LABEL -> true;
+            default -> false;
+        };
+    }
+
+    /** Devuelve cuántas instrucciones (y phis) borró. */
+    public static int run(ControlFlowGraph cfg) {
+        int removed = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Liveness lv = new Liveness(cfg);
+            NameIndex names = lv.names();
+            for (BasicBlock b : cfg.blocks) {
+                Bits live = lv.liveOut(b).copy();
+                for (int k = b.code.size() - 1; k >= 0; k--) {
+                    TacInstr i = b.code.get(k);
+                    Name d = i.def();
+                    if (d != null && !live.get(names.indexOf(d))) {
+                        if (i.op == TacOp.CALL) {
+                            b.code.set(k, i = new TacInstr(TacOp.CALL, i.a, i.b, null));
+                            changed = true;
+                        } else if (!hasSideEffects(i.op)) {
+                            b.code.remove(k);
+                            removed++;
+                            changed = true;
+                            continue;
+                        }
+                    }
+                    if (d != null) live.clear(names.indexOf(d));
+                    for (Name u : i.uses()) live.set(names.indexOf(u));
+                }
+                int n = b.phis.size();
+                b.phis.removeIf(p -> !live.get(names.indexOf(p.dest)));
+                if (b.phis.size() != n) {
+                    removed += n - b.phis.size();
+                    changed = true;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Mark-sweep: solo sobrevive lo que alimenta (transitivamente) a una
+     * instrucción con efectos. A diferencia de run(), borra también ciclos
+     * muertos a través de phis (p.ej. una IV que ya nadie lee). Devuelve
+     * cuántas instrucciones y phis borró.
+     */
+    public static int sweep(ControlFlowGraph cfg) {
+        Map<Name, Object> defOf = new HashMap<>();
+        for (BasicBlock b : cfg.blocks) {
+            for (PhiNode p : b.phis) defOf.put(p.dest, p);
+            for (TacInstr i : b.code) if (i.def() != null) defOf.put(i.def(), i);
+        }
+        Set<Object> marked = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Object> work = new ArrayDeque<>();
+        for (BasicBlock b : cfg.blocks) {
+            for (TacInstr i : b.code) {
+                if (hasSideEffects(i.op) && marked.add(i)) work.push(i);
+            }
+        }
+        while (!work.isEmpty()) {
+            Object o = work.pop();
+            Collection<? extends Operand> uses = (o instanceof PhiNode p) ? p.args.values() : ((TacInstr) o).uses();
+            for (Operand u : uses) {
+                Object d = defOf.get(u);
+                if (d != null && marked.add(d)) work.push(d);
+            }
+        }
+        int removed = 0;
+        for (BasicBlock b : cfg.blocks) {
+            int n = b.phis.size() + b.code.size();
+            b.phis.removeIf(p -> !marked.contains(p));
+            b.code.removeIf(i -> !marked.contains(i) && !hasSideEffects(i.op));
+            removed += n - b.phis.size() - b.code.size();
+        }
+        return removed;
+    }
+}
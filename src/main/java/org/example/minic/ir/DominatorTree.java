@@ -0,0 +1,140 @@
+package org.example.minic.ir;
+
+import java.util.*;
+
+/**
+ * Árbol de dominadores y fronteras de dominancia de un CFG
+ * (algoritmo iterativo de Cooper, Harvey y Kennedy sobre reverse postorder).
+ * Solo cubre bloques alcanzables: conviene llamar removeUnreachable() antes.
+ */
+public class DominatorTree {
+
+    private final ControlFlowGraph cfg;
+    private final List<BasicBlock> rpo;
+    private final int[] rpoIndex;          // por id de bloque (-1 = inalcanzable)
+    private final BasicBlock[] idom;       // por id de bloque
+    private final List<List<BasicBlock>> children = new ArrayList<>();
+    private final List<Set<BasicBlock>> frontier = new ArrayList<>();
+    private final int[] pre, post;         // numeración del árbol para dominates()
+
+    public DominatorTree(ControlFlowGraph cfg) {
+        this.cfg = cfg;
+        int n = cfg.blocks.size();
+        rpo = cfg.reversePostOrder();
+        rpoIndex = new int[n];
+        Arrays.fill(rpoIndex, -1);
+        for (int k = 0; k < rpo.size(); k++) rpoIndex[rpo.get(k).id] = k;
+        idom = new BasicBlock[n];
+        for (int k = 0; k < n; k++) {
+            children.add(new ArrayList<>());
+            frontier.add(new LinkedHashSet<>());
+        }
+        pre = new int[n];
+        post = new int[n];
+
+        computeIdom();
+        for (BasicBlock b : rpo) {
+            if (b != cfg.entry()) children.get(idom[b.id].id).add(b);
+        }
+        computeFrontiers();
+        number();
+    }
+
+    private void computeIdom() {
+        BasicBlock entry = cfg.entry();
+        idom[entry.id] = entry;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (BasicBlock b : rpo) {
+                if (b == entry) continue;
+                BasicBlock newIdom = null;
+                for (BasicBlock p : b.preds) {
+                    if (rpoIndex[p.id] < 0 || idom[p.id] == null) continue;
+                    newIdom = (newIdom == null) ? p : intersect(p, newIdom);
+                }
+                if (newIdom != null && idom[b.id] != newIdom) {
+                    idom[b.id] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private BasicBlock intersect(BasicBlock a, BasicBlock b) {
+        while (a != b) {
+            while (rpoIndex[a.id] > rpoIndex[b.id]) a = idom[a.id];
+            while (rpoIndex[b.id] > rpoIndex[a.id]) b = idom[b.id];
+        }
+        return a;
+    }
+
+    private void computeFrontiers() {
+        for (BasicBlock b : rpo) {
+            if (b.preds.size() < 2) continue;
+            for (BasicBlock p : b.preds) {
+                if (rpoIndex[p.id] < 0) continue;
+                BasicBlock runner = p;
+                while (runner != idom[b.id]) {
+                    frontier.get(runner.id).add(b);
+                    runner = idom[runner.id];
+                }
+            }
+        }
+    }
+
+    private void number() {
+        int counter = 0;
+        Deque<BasicBlock> stack = new ArrayDeque<>();
+        Deque<Integer> next = new ArrayDeque<>();
+        stack.push(cfg.entry());
+        next.push(0);
+        pre[cfg.entry().id] = counter++;
+        while (!stack.isEmpty()) {
+            BasicBlock b = stack.peek();
+            int k = next.pop();
+            List<BasicBlock> ch = children.get(b.id);
+            if (k < ch.size()) {
+                next.push(k + 1);
+                BasicBlock c = ch.get(k);
+                pre[c.id] = counter++;
+                stack.push(c);
+                next.push(0);
+            } else {
+                post[b.id] = counter++;
+                stack.pop();
+            }
+        }
+    }
+
+    /** Dominador inmediato (la entrada no tiene: devuelve null). */
+    public BasicBlock idom(BasicBlock b) {
+        return (b == cfg.entry()) ? null : idom[b.id];
+    }
+
+    public List<BasicBlock> children(BasicBlock b) { return children.get(b.id); }
+
+    public Set<BasicBlock> frontier(BasicBlock b) { return frontier.get(b.id); }
+
+    /** true si a domina a b (todo bloque se domina a sí mismo). */
+    public boolean dominates(BasicBlock a, BasicBlock b) {
+        if (rpoIndex[a.id] < 0 || rpoIndex[b.id] < 0) return false;
+        return pre[a.id] <= pre[b.id] && post[b.id] <= post[a.id];
+    }
+
+    /** Bloques en preorden del árbol (cada bloque antes que los que domina). */
+    public List<BasicBlock> preorder() {
+        List<BasicBlock> out = new ArrayList<>(rpo.size());
+        Deque<BasicBlock> stack = new ArrayDeque<>();
+        stack.push(cfg.entry());
+        while (!stack.isEmpty()) {
+            BasicBlock b = stack.pop();
+            out.add(b);
+            List<BasicBlock> ch = children.get(b.id);
+            for (int k = ch.size() - 1; k >= 0; k--) stack.push(ch.get(k));
+        }
+        return out;
+    }
+
+    public List<BasicBlock> reversePostOrder() { return rpo; }
+}
@@ -0,0 +1,315 @@
+package org.example.minic.ir;
+
+import org.example.minic.ir.Operand.IntConst;
+import org.example.minic.ir.Operand.Name;
+
+import java.util.*;
+
+/**
+ * Reducción de fuerza de variables de inducción (forma SSA, estilo OSR).
+ * - IV básica: phi del header {@code i = phi [init, pre], [next, latch]} con
+ *   {@code next = i + c} (o {@code i - c}), c literal.
+ * - IV derivada: nombre del loop que vale {@code s*i + off}, con s literal y
+ *   off invariante (sumas/restas de invariantes y productos por literales).
+ * Una derivada que pasa por un MUL y se usa fuera de la cadena (offset de
+ * LOAD/STORE, comparación, phi...) se reemplaza por una IV nueva:
+ * {@code x' = phi [s*init + off, pre], [x' + s*c, latch]}.
+ * Si la IV básica queda usada solo por su incremento y la condición del loop,
+ * la condición pasa a comparar la IV nueva (LFTR) y el ciclo viejo se borra.
+ * Solo loops con preheader y un único latch.
+ */
+public final class InductionVariables {
+
+    /** Valor scale * iv + off, relativo al valor del phi iv en la iteración actual. */
+    private record Affine(Operand iv, int scale, Operand off, boolean viaMul) { }
+
+    /** IV básica. */
+    private record Basic(PhiNode phi, Operand init, Operand next, int step) { }
+
+    /** IV nueva creada para una derivada (scale * iv + off). */
+    private record Reduced(Operand dest, int scale, Operand off) { }
+
+    private final ControlFlowGraph cfg;
+    private final LoopInfo.Loop loop;
+    private final BasicBlock pre, latch;
+    private final Map<Operand, BasicBlock> defBlock = new HashMap<>();
+    private final Map<Operand, TacInstr> defInstr = new HashMap<>();
+
+    private InductionVariables(ControlFlowGraph cfg, LoopInfo.Loop loop) {
+        this.cfg = cfg;
+        this.loop = loop;
+        this.pre = loop.preheader();
+        this.latch = loop.latches.get(0);
+        for (BasicBlock b : cfg.blocks) {
+            for (PhiNode p : b.phis) defBlock.put(p.dest, b);
+            for (TacInstr i : b.code) {
+                if (i.def() == null) continue;
+                defBlock.put(i.def(), b);
+                defInstr.put(i.def(), i);
+            }
+        }
+    }
+
+    /** Devuelve cuántas IVs derivadas redujo más cuántas condiciones reemplazó. */
+    public static int run(ControlFlowGraph cfg) {
+        LoopInfo.insertPreheaders(cfg);
+        LoopInfo li = new LoopInfo(cfg);
+        int n = 0;
+        for (LoopInfo.Loop l : li.loops()) {
+            if (l.preheader() == null || l.latches.size() != 1) continue;
+            n += new InductionVariables(cfg, l).reduce(li.dominators());
+        }
+        if (n > 0) DeadCodeElimination.sweep(cfg);
+        return n;
+    }
+
+    private int reduce(DominatorTree dt) {
+        Map<Operand, Basic> basics = new LinkedHashMap<>();
+        for (PhiNode p : loop.header.phis) {
+            Basic b = basicOf(p);
+            if (b != null) basics.put(p.dest, b);
+        }
+        if (basics.isEmpty()) return 0;
+
+        // Formas afines, en preorden del árbol de dominadores (defs antes que usos)
+        Map<Operand, Affine> aff = new LinkedHashMap<>();
+        for (Operand iv : basics.keySet()) aff.put(iv, new Affine(iv, 1, Operand.of(0), false));
+        for (BasicBlock b : dt.preorder()) {
+            if (!loop.contains(b)) continue;
+            for (TacInstr i : b.code) {
+                Operand d = i.def();
+                if (d == null) continue;
+                Affine a = affineOf(i, aff);
+                if (a != null) aff.put(d, a);
+            }
+        }
+
+        int n = 0;
+        Map<Operand, List<Reduced>> byIv = new HashMap<>();
+        for (Map.Entry<Operand, Affine> e : aff.entrySet()) {
+            Operand x = e.getKey();
+            Affine a = e.getValue();
+            if (!a.viaMul() || basics.containsKey(x) || !usedOutsideChain(x, aff)) continue;
+            Basic iv = basics.get(a.iv());
+            Reduced r = newIv(iv, a);
+            rename(x, r.dest());
+            byIv.computeIfAbsent(a.iv(), k -> new ArrayList<>()).add(r);
+            n++;
+        }
+
+        if (byIv.isEmpty()) return n;
+        // la cadena vieja ya no se usa: quitarla antes de mirar los usos de las IVs básicas
+        DeadCodeElimination.sweep(cfg);
+        for (Map.Entry<Operand, List<Reduced>> e : byIv.entrySet()) {
+            if (replaceTest(basics.get(e.getKey()), e.getValue().get(0))) n++;
+        }
+        return n;
+    }
+
+    private Basic basicOf(PhiNode p) {
+        if (p.args.size() != 2) return null;
+        Operand init = p.args.get(pre), next = p.args.get(latch);
+        if (init == null || next == null) return null;
+        TacInstr d = defInstr.get(next);
+        if (d == null || !loop.contains(defBlock.get(next))) return null;
+        if (d.op == TacOp.ADD && p.dest.equals(d.a) && d.b instanceof IntConst c) {
+            return new Basic(p, init, next, c.value());
+        }
+        if (d.op == TacOp.ADD && p.dest.equals(d.b) && d.a instanceof IntConst c) {
+            return new Basic(p, init, next, c.value());
+        }
+        if (d.op == TacOp.SUB && p.dest.equals(d.a) && d.b instanceof IntConst c) {
+            return new Basic(p, init, next, -c.value());
+        }
+        return null;
+    }
+
+    private boolean invariant(Operand s) {
+        if (s instanceof IntConst) return true;
+        if (!(s instanceof Name)) return false;
+        BasicBlock d = defBlock.get(s);
+        return d == null || !loop.contains(d);
+    }
+
+    private Affine affineOf(TacInstr i, Map<Operand, Affine> aff) {
+        Affine x = aff.get(i.a), y = aff.get(i.b);
+        switch (i.op) {
+            case ADD:
+                if (x != null && invariant(i.b)) return new Affine(x.iv(), x.scale(), emit(TacOp.ADD, x.off(), i.b), x.viaMul());
+                if (y != null && invariant(i.a)) return new Affine(y.iv(), y.scale(), emit(TacOp.ADD, i.a, y.off()), y.viaMul());
+                return null;
+            case SUB:
+                if (x != null && invariant(i.b)) return new Affine(x.iv(), x.scale(), emit(TacOp.SUB, x.off(), i.b), x.viaMul());
+                if (y != null && invariant(i.a)) return new Affine(y.iv(), -y.scale(), emit(TacOp.SUB, i.a, y.off()), y.viaMul());
+                return null;
+            case MUL:
+                if (x != null && i.b instanceof IntConst k) return scaled(x, k.value());
+                if (y != null && i.a instanceof IntConst k) return scaled(y, k.value());
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    private Affine scaled(Affine a, int k) {
+        return new Affine(a.iv(), a.scale() * k, emit(TacOp.MUL, a.off(), Operand.of(k)), true);
+    }
+
+    /** ¿x se lee fuera de la cadena de IVs derivadas (o desde un phi)? */
+    private boolean usedOutsideChain(Operand x, Map<Operand, Affine> aff) {
+        for (BasicBlock b : cfg.blocks) {
+            for (PhiNode p : b.phis) if (p.args.containsValue(x)) return true;
+            for (TacInstr i : b.code) {
+                if (!i.uses().contains(x)) continue;
+                if (i.def() == null || !aff.containsKey(i.def())) return true;
+            }
+        }
+        return false;
+    }
+
+    private Reduced newIv(Basic iv, Affine a) {
+        Operand init = emit(TacOp.ADD, emit(TacOp.MUL, iv.init(), Operand.of(a.scale())), a.off());
+        PhiNode p = new PhiNode(cfg.newTemp());
+        Name next = cfg.newTemp();
+        p.args.put(pre, init);
+        p.args.put(latch, next);
+        loop.header.phis.add(p);
+        defBlock.put(p.dest, loop.header);
+
+        TacInstr inc = new TacInstr(TacOp.ADD, p.dest, Operand.of(a.scale() * iv.step()), next);
+        latch.code.add(latch.code.size() - (latch.terminator() != null ? 1 : 0), inc);
+        defBlock.put(next, latch);
+        defInstr.put(next, inc);
+        return new Reduced(p.dest, a.scale(), a.off());
+    }
+
+    /** Todos los usos de from pasan a leer to (la def de from queda muerta). */
+    private void rename(Operand from, Operand to) {
+        for (BasicBlock b : cfg.blocks) {
+            for (PhiNode p : b.phis) p.args.replaceAll((k, v) -> from.equals(v) ? to : v);
+            b.code.replaceAll(i -> i.mapUses(u -> from.equals(u) ? to : u));
+        }
+    }
+
+    /**
+     * LFTR: si la IV básica solo la leen su incremento y una comparación con
+     * un invariante dentro del loop, esa comparación pasa a usar r.
+     */
+    private boolean replaceTest(Basic iv, Reduced r) {
+        if (r.scale() == 0) return false;
+        Name i = iv.phi().dest;
+        BasicBlock cmpBlock = null;
+        int cmpAt = -1;
+        for (BasicBlock b : cfg.blocks) {
+            for (PhiNode p : b.phis) {
+                if (p.args.containsValue(i)) return false;
+                if (p.args.containsValue(iv.next()) && p != iv.phi()) return false;
+            }
+            for (int k = 0; k < b.code.size(); k++) {
+                TacInstr u = b.code.get(k);
+                if (u.uses().contains(iv.next())) return false;
+                if (!u.uses().contains(i) || iv.next().equals(u.def())) continue;
+                if (cmpBlock != null || !loop.contains(b) || !isCompare(u.op)) return false;
+                Operand other = i.equals(u.a) ? u.b : u.a;
+                if (i.equals(other) || !invariant(other)) return false;
+                cmpBlock = b;
+                cmpAt = k;
+            }
+        }
+        if (cmpBlock == null) return false;
+
+        TacInstr c = cmpBlock.code.get(cmpAt);
+        boolean ivLeft = i.equals(c.a);
+        if (cmpBlock != loop.header || !noOverflow(iv, r, ivLeft ? c.b : c.a, stayOp(c, ivLeft))) return false;
+        Operand bound = emit(TacOp.ADD, emit(TacOp.MUL, ivLeft ? c.b : c.a, Operand.of(r.scale())), r.off());
+        TacOp op = (r.scale() < 0) ? flip(c.op) : c.op;
+        TacInstr nc = ivLeft
+                ? new TacInstr(op, r.dest(), bound, c.r)
+                : new TacInstr(op, bound, r.dest(), c.r);
+        cmpBlock.code.set(cmpAt, nc);
+        return true;
+    }
+
+    /**
+     * Condición (i op bound, con i a la izquierda) mientras la cual el header
+     * sigue en el loop, o null si el salto del header no sale por c.r.
+     */
+    private TacOp stayOp(TacInstr c, boolean ivLeft) {
+        TacInstr t = loop.header.terminator();
+        if (t == null || (t.op != TacOp.IFZ && t.op != TacOp.IFNZ) || !c.r.equals(t.a)) return null;
+        BasicBlock jump = cfg.blockOf(t.labelName()), fall = loop.header.fallThrough;
+        if (jump == null || fall == null || loop.contains(jump) == loop.contains(fall)) return null;
+        // IFZ sale por el salto si c es falsa; IFNZ si es verdadera
+        boolean stayIfTrue = (t.op == TacOp.IFZ) == loop.contains(fall);
+        TacOp op = ivLeft ? c.op : flip(c.op);
+        return stayIfTrue ? op : negate(op);
+    }
+
+    /**
+     * LFTR solo si r no desborda en ningún valor que la comparación ve de i:
+     * de init hasta el primero que pasa el límite (bound + step). Exige init,
+     * bound y off literales y que i avance hacia el límite.
+     */
+    private static boolean noOverflow(Basic iv, Reduced r, Operand bound, TacOp stay) {
+        if (!(iv.init() instanceof IntConst init) || !(bound instanceof IntConst b)
+                || !(r.off() instanceof IntConst off)) return false;
+        boolean up = (stay == TacOp.LT || stay == TacOp.LE) && iv.step() > 0;
+        boolean down = (stay == TacOp.GT || stay == TacOp.GE) && iv.step() < 0;
+        if (!up && !down) return false;
+        try {
+            int last = Math.addExact(b.value(), iv.step());
+            for (int v : new int[] {init.value(), b.value(), last}) {
+                Math.addExact(Math.multiplyExact(v, r.scale()), off.value());
+            }
+            return true;
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+    private static boolean isCompare(TacOp op) {
+        return switch (op) {
+            case LT, LE, GT, GE, EQ, NEQ -> true;
+            default -> false;
+        };
+    }
+
+    private static TacOp flip(TacOp op) {
+        return switch (op) {
+            case LT -> TacOp.GT;
+            case LE -> TacOp.GE;
+            case GT -> TacOp.LT;
+            case GE -> TacOp.LE;
+            default -> op;
+        };
+    }
+
+    /** Comparación opuesta: !(x op y) == x negate(op) y. */
+    private static TacOp negate(TacOp op) {
+        return switch (op) {
+            case LT -> TacOp.GE;
+            case LE -> TacOp.GT;
+            case GT -> TacOp.LE;
+            case GE -> TacOp.LT;
+            case EQ -> TacOp.NEQ;
+            case NEQ -> TacOp.EQ;
+            default -> op;
+        };
+    }
+
+    /** x op y calculado en el preheader (plegado si se puede). */
+    private Operand emit(TacOp op, Operand x, Operand y) {
+        if (x instanceof IntConst a && y instanceof IntConst b) {
+            return Operand.of(TacOptimizer.eval(op, a.value(), b.value()));
+        }
+        IntConst zero = Operand.of(0), one = Operand.of(1);
+        if ((op == TacOp.ADD || op == TacOp.SUB) && zero.equals(y)) return x;
+        if (op == TacOp.ADD && zero.equals(x)) return y;
+        if (op == TacOp.MUL && one.equals(y)) return x;
+        if (op == TacOp.MUL && zero.equals(y)) return zero;
+        Name t = cfg.newTemp();
+        pre.code.add(pre.code.size() - (pre.terminator() != null ? 1 : 0), new TacInstr(op, x, y, t));
+        defBlock.put(t, pre);
+        return t;
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.minic.ir;
+
+import org.example.minic.ir.Operand.Name;
+
+import java.util.List;
+
+/**
+ * Liveness por bloque (hacia atrás, unión) sobre el framework de dataflow.
+ * - Sirve con y sin SSA: los args de un phi se leen al final del pred
+ *   correspondiente y su dest se define al entrar al bloque.
+ * - UseDef permite cambiar qué lee/define cada instrucción (el asignador
+ *   cuenta los PARAM como leídos en el CALL).
+ */
+public final class Liveness {
+
+    /** Qué lee y qué define una instrucción. */
+    public interface UseDef {
+        List<Name> uses(TacInstr i);
+
+        default Name def(TacInstr i) {
+            return i.def();
+        }
+    }
+
+    public static final UseDef DEFAULT = TacInstr::uses;
+
+    private final NameIndex names;
+    private final Dataflow.Result result;
+
+    public Liveness(ControlFlowGraph cfg) {
+        this(cfg, NameIndex.of(cfg), DEFAULT);
+    }
+
+    public Liveness(ControlFlowGraph cfg, NameIndex names, UseDef ud) {
+        this.names = names;
+        // cada nombre necesita índice antes de fijar el ancho de los conjuntos
+        for (BasicBlock b : cfg.blocks) {
+            for (PhiNode p : b.phis) {
+                names.add(p.dest);
+                for (Operand a : p.args.values()) if (a instanceof Name n) names.add(n);
+            }
+            for (TacInstr i : b.code) {
+                for (Name u : ud.uses(i)) names.add(u);
+                if (ud.def(i) != null) names.add(ud.def(i));
+            }
+        }
+        this.result = Dataflow.solve(cfg, new Problem(cfg, names, ud));
+    }
+
+    public NameIndex names() {
+        return names;
+    }
+
+    public Bits liveIn(BasicBlock b) {
+        return result.atEntry(b);
+    }
+
+    public Bits liveOut(BasicBlock b) {
+        return result.atExit(b);
+    }
+
+    public boolean isLiveOut(BasicBlock b, Name n) {
+        int k = names.indexOf(n);
+        return k >= 0 && liveOut(b).get(k);
+    }
+
+    private static final class Problem extends DataflowProblem.GenKill {
+        private final NameIndex names;
+
+        Problem(ControlFlowGraph cfg, NameIndex names, UseDef ud) {
+            super(cfg, names.size());
+            this.names = names;
+            for (BasicBlock b : cfg.blocks) {
+                Bits g = gen[b.id], k = kill[b.id];
+                for (int j = b.code.size() - 1; j >= 0; j--) {
+                    TacInstr i = b.code.get(j);
+                    Name d = ud.def(i);
+                    if (d != null) {
+                        int x = names.indexOf(d);
+                        g.clear(x);
+                        k.set(x);
+                    }
+                    for (Name u : ud.uses(i)) g.set(names.indexOf(u));
+                }
+                for (PhiNode p : b.phis) {
+                    int x = names.indexOf(p.dest);
+                    g.clear(x);
+                    k.set(x);
+                }
+            }
+        }
+
+        @Override public boolean forward() {
+            return false;
+        }
+
+        @Override public Meet meet() {
+            return Meet.UNION;
+        }
+
+        @Override public Bits boundary() {
+            return new Bits(width());
+        }
+
+        @Override public boolean hasEdgeTransfer() {
+            return true;
+        }
+
+        @Override public void edgeTransfer(BasicBlock from, BasicBlock to, Bits v) {
+            for (PhiNode p : to.phis) {
+                if (p.args.get(from) instanceof Name a) v.set(names.indexOf(a));
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.minic.ir;
+
+import java.util.*;
+
+/**
+ * Loops naturales de un CFG: cada arista b -> h donde h domina a b es un
+ * back edge, y el cuerpo son los bloques que llegan a b sin pasar por h.
+ * Back edges al mismo header forman un solo loop.
+ * Se calcula sobre un CFG fijo: después de cambiar bloques hay que rehacerlo.
+ */
+public class LoopInfo {
+
+    public static final class Loop {
+        public final BasicBlock header;
+        /** Bloques del loop (incluye header), en orden de layout. */
+        public final Set<BasicBlock> body = new LinkedHashSet<>();
+        public final List<BasicBlock> latches = new ArrayList<>();
+        public Loop parent;
+
+        Loop(BasicBlock header) { this.header = header; }
+
+        public boolean contains(BasicBlock b) { return body.contains(b); }
+
+        /** Preds del header que están fuera del loop. */
+        public List<BasicBlock> entries() {
+            List<BasicBlock> out = new ArrayList<>();
+            for (BasicBlock p : header.preds) if (!body.contains(p)) out.add(p);
+            return out;
+        }
+
+        /** Único pred externo con el header como único sucesor, o null. */
+        public BasicBlock preheader() {
+            List<BasicBlock> e = entries();
+            if (e.size() != 1 || e.get(0).succs.size() != 1) return null;
+            return e.get(0);
+        }
+
+        public int depth() {
+            int d = 1;
+            for (Loop p = parent; p != null; p = p.parent) d++;
+            return d;
+        }
+
+        @Override public String toString() {
+            return "loop " + header.name() + " (" + body.size() + " bloques)";
+        }
+    }
+
+    private final DominatorTree dom;
+    private final List<Loop> loops = new ArrayList<>();   // internos primero
+
+    public LoopInfo(ControlFlowGraph cfg) {
+        this.dom = new DominatorTree(cfg);
+        Map<BasicBlock, Loop> byHeader = new LinkedHashMap<>();
+        for (BasicBlock b : dom.reversePostOrder()) {
+            for (BasicBlock h : b.succs) {
+                if (!dom.dominates(h, b)) continue;
+                Loop l = byHeader.computeIfAbsent(h, Loop::new);
+                l.latches.add(b);
+                collect(l, b);
+            }
+        }
+        List<Loop> all = new ArrayList<>(byHeader.values());
+        for (Loop l : all) {
+            Set<BasicBlock> ordered = new TreeSet<>(Comparator.comparingInt((BasicBlock x) -> x.id));
+            ordered.addAll(l.body);
+            l.body.clear();
+            l.body.addAll(ordered);
+        }
+        // internos primero: un loop anidado tiene estrictamente menos bloques
+        all.sort(Comparator.comparingInt((Loop l) -> l.body.size()).thenComparingInt(l -> l.header.id));
+        for (int k = 0; k < all.size(); k++) {
+            Loop l = all.get(k);
+            for (int j = k + 1; j < all.size(); j++) {
+                if (all.get(j).body.containsAll(l.body)) {
+                    l.parent = all.get(j);
+                    break;
+                }
+            }
+        }
+        loops.addAll(all);
+    }
+
+    private static void collect(Loop l, BasicBlock latch) {
+        l.body.add(l.header);
+        Deque<BasicBlock> work = new ArrayDeque<>();
+        if (l.body.add(latch)) work.push(latch);
+        while (!work.isEmpty()) {
+            BasicBlock b = work.pop();
+            for (BasicBlock p : b.preds) {
+                if (l.body.add(p)) work.push(p);
+            }
+        }
+    }
+
+    public DominatorTree dominators() { return dom; }
+
+    /** Loops del CFG, los más internos primero. */
+    public List<Loop> loops() { return loops; }
+
+    /** Loop más interno que contiene a b, o null. */
+    public Loop loopOf(BasicBlock b) {
+        for (Loop l : loops) if (l.contains(b)) return l;
+        return null;
+    }
+
+    // ---------------- Preheaders ----------------
+
+    /**
+     * Garantiza un preheader en cada loop: un bloque fuera del loop cuyo
+     * único sucesor es el header y que es su único pred externo.
+     * En SSA, los args de phis del header que vienen de afuera se juntan en
+     * el preheader (con un phi nuevo si difieren). Devuelve cuántos agregó.
+     */
+    public static int insertPreheaders(ControlFlowGraph cfg) {
+        int added = 0;
+        while (true) {
+            Loop missing = null;
+            for (Loop l : new LoopInfo(cfg).loops()) {
+                if (l.preheader() == null) {
+                    missing = l;
+                    break;
+                }
+            }
+            if (missing == null) return added;
+            insertPreheader(cfg, missing);
+            added++;
+        }
+    }
+
+    private static void insertPreheader(ControlFlowGraph cfg, Loop l) {
+        BasicBlock h = l.header;
+        List<BasicBlock> outside = l.entries();
+        BasicBlock pre = cfg.insertBlockBefore(h);
+        for (BasicBlock o : outside) cfg.redirectEdge(o, h, pre);
+
+        for (PhiNode p : h.phis) {
+            Map<BasicBlock, Operand> in = new LinkedHashMap<>();
+            for (BasicBlock o : outside) {
+                Operand v = p.args.remove(o);
+                if (v != null) in.put(o, v);
+            }
+            if (new HashSet<>(in.values()).size() <= 1) {
+                if (!in.isEmpty()) p.args.put(pre, in.values().iterator().next());
+            } else {
+                PhiNode q = new PhiNode(p.var);
+                q.dest = cfg.newTemp();
+                q.args.putAll(in);
+                pre.phis.add(q);
+                p.args.put(pre, q.dest);
+            }
+        }
+        cfg.computeEdges();
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.minic.ir;
+
+import org.example.minic.ir.Operand.IntConst;
+import org.example.minic.ir.Operand.Name;
+
+import java.util.*;
+
+/**
+ * Sacar código invariante de los loops (forma SSA).
+ * Una instrucción del loop es invariante si todos sus operandos son literales
+ * o nombres definidos fuera del loop; se mueve al final del preheader.
+ * - Solo operaciones puras; DIV/MOD solo con divisor literal distinto de 0.
+ * - LOAD solo con offset literal, si el loop no hace STORE sobre esa base
+ *   ni llama a funciones del programa (los builtins no tocan memoria).
+ * Los loops internos se procesan primero, así lo que sale de un loop
+ * interno puede seguir subiendo en el externo.
+ */
+public final class LoopInvariantCodeMotion {
+
+    private LoopInvariantCodeMotion() { }
+
+    /** Devuelve cuántas instrucciones movió a un preheader. */
+    public static int run(ControlFlowGraph cfg, Set<String> userFunctions) {
+        LoopInfo.insertPreheaders(cfg);
+        LoopInfo li = new LoopInfo(cfg);
+        if (li.loops().isEmpty()) return 0;
+
+        Map<Name, BasicBlock> defBlock = new HashMap<>();
+        for (BasicBlock b : cfg.blocks) {
+            for (PhiNode p : b.phis) defBlock.put(p.dest, b);
+            for (TacInstr i : b.code) if (i.def() != null) defBlock.put(i.def(), b);
+        }
+
+        int hoisted = 0;
+        for (LoopInfo.Loop l : li.loops()) {
+            BasicBlock pre = l.preheader();
+            if (pre == null) continue;
+
+            boolean calls = false;
+            Set<Operand> stored = new HashSet<>();
+            for (BasicBlock b : l.body) {
+                for (TacInstr i : b.code) {
+                    if (i.op == TacOp.CALL && userFunctions.contains(i.callee())) calls = true;
+                    if (i.op == TacOp.STORE) stored.add(i.b);
+                }
+            }
+
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (BasicBlock b : l.body) {
+                    for (Iterator<TacInstr> it = b.code.iterator(); it.hasNext(); ) {
+                        TacInstr i = it.next();
+                        if (!isHoistable(i, calls, stored)) continue;
+                        boolean inv = true;
+                        for (Name u : i.uses()) {
+                            BasicBlock d = defBlock.get(u);
+                            if (d != null && l.contains(d)) {
+                                inv = false;
+                                break;
+                            }
+                        }
+                        if (!inv) continue;
+                        it.remove();
+                        int at = pre.code.size() - (pre.terminator() != null ? 1 : 0);
+                        pre.code.add(at, i);
+                        defBlock.put(i.def(), pre);
+                        hoisted++;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return hoisted;
+    }
+
+    private static boolean isHoistable(TacInstr i, boolean calls, Set<Operand> stored) {
+        if (i.def() == null) return false;
+        return switch (i.op) {
+            case CALL, PARAM, STORE, RET, IFZ, IFNZ, GOTO, LABEL -> false;
+            case DIV, MOD -> i.b instanceof IntConst c && c.value() != 0;
+            case LOAD -> i.b instanceof IntConst && !calls && !stored.contains(i.a);
+            default -> true;
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.minic.ir;
+
+import org.example.minic.ir.Operand.Name;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Numeración densa de los nombres (Temp/Var) de una función, para indexar
+ * conjuntos Bits. Los params van primero, después el orden de aparición.
+ */
+public final class NameIndex {
+
+    private final Map<Name, Integer> index = new HashMap<>();
+    private final List<Name> names = new ArrayList<>();
+
+    public static NameIndex of(ControlFlowGraph cfg) {
+        NameIndex ix = new NameIndex();
+        for (Name p : cfg.function().params) ix.add(p);
+        for (BasicBlock b : cfg.blocks) {
+            for (PhiNode p : b.phis) {
+                ix.add(p.dest);
+                for (Operand a : p.args.values()) if (a instanceof Name n) ix.add(n);
+            }
+            for (TacInstr i : b.code) {
+                for (Name u : i.uses()) ix.add(u);
+                if (i.def() != null) ix.add(i.def());
+            }
+        }
+        return ix;
+    }
+
+    /** Índice de n (lo agrega si es nuevo). */
+    public int add(Name n) {
+        Integer k = index.get(n);
+        if (k != null) return k;
+        index.put(n, names.size());
+        names.add(n);
+        return names.size() - 1;
+    }
+
+    /** Índice de n, o -1 si no está. */
+    public int indexOf(Name n) {
+        Integer k = index.get(n);
+        return (k == null) ? -1 : k;
+    }
+
+    public Name get(int k) {
+        return names.get(k);
+    }
+
+    public int size() {
+        return names.size();
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.minic.ir;
+
+/**
+ * Operando tipado de una instrucción TAC.
+ * - Name (Temp / Var): lo que se define y se lee; ocupa registro o slot.
+ * - IntConst / CharConst: inmediatos (CharConst conserva el texto original).
+ * - StrConst: literal del pool de strings del programa.
+ * - Label: destino de salto, función llamada o base de un global en .data.
+ * toString() da el mismo texto que el TAC de antes, así los dumps no cambian;
+ * solo una Var con nombre de temporal (t0, t12...) sale como "@t0" para no
+ * confundirse con el Temp.
+ */
+public sealed interface Operand
+        permits Operand.Name, Operand.IntConst, Operand.CharConst, Operand.StrConst, Operand.Label {
+
+    /** Temp o Var. version > 0 solo en forma SSA ("x.2", "t3.1"). */
+    sealed interface Name extends Operand permits Temp, Var {
+        int version();
+
+        Name withVersion(int v);
+    }
+
+    /** Temporal generado: id único dentro de la función. */
+    record Temp(int id, int version) implements Name {
+        public Temp(int id) {
+            this(id, 0);
+        }
+
+        @Override public Name withVersion(int v) {
+            return new Temp(id, v);
+        }
+
+        @Override public String toString() {
+            return (version == 0) ? "t" + id : "t" + id + "." + version;
+        }
+    }
+
+    /** Variable local o parámetro: id por nombre dentro de la función. */
+    record Var(int id, String name, int version) implements Name {
+        @Override public Name withVersion(int v) {
+            return new Var(id, name, v);
+        }
+
+        @Override public String toString() {
+            String n = looksLikeTemp(name) ? "@" + name : name;
+            return (version == 0) ? n : n + "." + version;
+        }
+
+        private static boolean looksLikeTemp(String s) {
+            if (s.length() < 2 || s.charAt(0) != 't') return false;
+            for (int k = 1; k < s.length(); k++) if (!Character.isDigit(s.charAt(k))) return false;
+            return true;
+        }
+    }
+
+    record IntConst(int value) implements Operand {
+        @Override public String toString() {
+            return Integer.toString(value);
+        }
+    }
+
+    /** Literal char: value es el código ASCII, text el literal con comillas. */
+    record CharConst(int value, String text) implements Operand {
+        @Override public String toString() {
+            return text;
+        }
+    }
+
+    /** Literal string: id en TacProgram.strings, text con comillas. */
+    record StrConst(int id, String text) implements Operand {
+        @Override public String toString() {
+            return text;
+        }
+    }
+
+    record Label(String name) implements Operand {
+        @Override public String toString() {
+            return name;
+        }
+    }
+
+    static IntConst of(int v) {
+        return new IntConst(v);
+    }
+
+    /**
+     * Orden total sobre operandos: primero el tipo (Temp, Var, int, char,
+     * string, label) y después sus campos. Lo usan las claves de expresiones
+     * para normalizar los conmutativos.
+     */
+    static int compare(Operand x, Operand y) {
+        int c = Integer.compare(rank(x), rank(y));
+        if (c != 0) return c;
+        if (x instanceof Temp a && y instanceof Temp b) {
+            c = Integer.compare(a.id(), b.id());
+            return (c != 0) ? c : Integer.compare(a.version(), b.version());
+        }
+        if (x instanceof Var a && y instanceof Var b) {
+            c = Integer.compare(a.id(), b.id());
+            if (c == 0) c = a.name().compareTo(b.name());
+            return (c != 0) ? c : Integer.compare(a.version(), b.version());
+        }
+        if (x instanceof IntConst a && y instanceof IntConst b) return Integer.compare(a.value(), b.value());
+        if (x instanceof CharConst a && y instanceof CharConst b) {
+            c = Integer.compare(a.value(), b.value());
+            return (c != 0) ? c : a.text().compareTo(b.text());
+        }
+        if (x instanceof StrConst a && y instanceof StrConst b) return Integer.compare(a.id(), b.id());
+        return ((Label) x).name().compareTo(((Label) y).name());
+    }
+
+    private static int rank(Operand o) {
+        if (o instanceof Temp) return 0;
+        if (o instanceof Var) return 1;
+        if (o instanceof IntConst) return 2;
+        if (o instanceof CharConst) return 3;
+        if (o instanceof StrConst) return 4;
+        return 5;
+    }
+
+    /** Entero o char literal (valor conocido en compilación). */
+    static boolean isConst(Operand o) {
+        return o instanceof IntConst || o instanceof CharConst;
+    }
+
+    static int constValue(Operand o) {
+        if (o instanceof IntConst c) return c.value();
+        if (o instanceof CharConst c) return c.value();
+        throw new IllegalArgumentException("no es constante: " + o);
+    }
+
+    /** Código ASCII de un literal char con comillas (soporta escapes comunes). */
+    static int charCode(String lit) {
+        String body = lit.substring(1, lit.length() - 1);
+        if (body.length() == 2 && body.charAt(0) == '\\') {
+            return switch (body.charAt(1)) {
+                case 'n' -> 10;
+                case 't' -> 9;
+                case 'r' -> 13;
+                case '0' -> 0;
+                default -> body.charAt(1);
+            };
+        }
+        return body.charAt(0);
+    }
+}
@@ -0,0 +1,275 @@
+package org.example.minic.ir;
+
+import org.example.minic.ir.Operand.Temp;
+import org.example.minic.ir.Operand.Var;
+
+import java.util.*;
+
+/**
+ * TAC de una función empaquetado en arreglos paralelos (struct-of-arrays),
+ * para funciones enormes donde un TacInstr por instrucción pesa demasiado.
+ * - op: ordinal de TacOp, un byte por instrucción.
+ * - a, b, r: código de operando (int). Los 4 bits altos dicen el tipo y el
+ *   resto es el payload: un Temp sin versión guarda su id directo; cualquier
+ *   otro operando indexa la tabla interna, donde cada valor distinto
+ *   (literal, label, Var, nombre SSA) aparece una sola vez.
+ * Como la tabla está internada, dos operandos son iguales sii sus códigos lo
+ * son: las pasadas pueden comparar ints sin materializar Operand.
+ * Se recorre con {@link Cursor}; pack/unpack convierten desde/hacia TacFunction.
+ */
+public final class PackedTac {
+
+    /** Código de operando ausente (null). */
+    public static final int NONE = -1;
+
+    // tipos de operando (4 bits altos del código)
+    public static final int K_TEMP = 0;
+    public static final int K_NAME = 1;    // Var o Temp con versión SSA
+    public static final int K_INT = 2;
+    public static final int K_CHAR = 3;
+    public static final int K_STR = 4;
+    public static final int K_LABEL = 5;
+
+    private static final int SHIFT = 28;
+    private static final int MASK = (1 << SHIFT) - 1;
+    private static final TacOp[] OPS = TacOp.values();
+    // instrucción borrada por Cursor.remove() (se descarta en compact/unpack)
+    private static final byte DELETED = -1;
+
+    public final String name;
+    public final List<Var> params = new ArrayList<>();
+
+    private byte[] op;
+    private int[] a, b, r;
+    private int size;
+    private int deleted;
+
+    private final List<Operand> pool = new ArrayList<>();
+    private final Map<Operand, Integer> poolIndex = new HashMap<>();
+
+    public PackedTac(String name) {
+        this(name, 16);
+    }
+
+    private PackedTac(String name, int capacity) {
+        this.name = name;
+        int n = Math.max(capacity, 1);
+        op = new byte[n];
+        a = new int[n];
+        b = new int[n];
+        r = new int[n];
+    }
+
+    // ---------------- Conversión ----------------
+
+    public static PackedTac pack(TacFunction f) {
+        PackedTac p = new PackedTac(f.name, f.code.size());
+        p.params.addAll(f.params);
+        for (TacInstr i : f.code) p.append(i);
+        return p;
+    }
+
+    public TacFunction unpack() {
+        TacFunction f = new TacFunction(name);
+        f.params.addAll(params);
+        for (int k = 0; k < size; k++) {
+            if (op[k] != DELETED) f.emit(instrAt(k));
+        }
+        return f;
+    }
+
+    // ---------------- Construcción ----------------
+
+    public void append(TacInstr i) {
+        append(i.op, encode(i.a), encode(i.b), encode(i.r));
+    }
+
+    /** Agrega una instrucción con operandos ya codificados (ver encode). */
+    public void append(TacOp o, int ca, int cb, int cr) {
+        if (size == op.length) grow();
+        op[size] = (byte) o.ordinal();
+        a[size] = ca;
+        b[size] = cb;
+        r[size] = cr;
+        size++;
+    }
+
+    private void grow() {
+        int n = op.length * 2;
+        op = Arrays.copyOf(op, n);
+        a = Arrays.copyOf(a, n);
+        b = Arrays.copyOf(b, n);
+        r = Arrays.copyOf(r, n);
+    }
+
+    /** Quita las instrucciones borradas y recorta los arreglos al tamaño justo. */
+    public void compact() {
+        int w = 0;
+        for (int k = 0; k < size; k++) {
+            if (op[k] == DELETED) continue;
+            op[w] = op[k];
+            a[w] = a[k];
+            b[w] = b[k];
+            r[w] = r[k];
+            w++;
+        }
+        size = w;
+        deleted = 0;
+        op = Arrays.copyOf(op, Math.max(size, 1));
+        a = Arrays.copyOf(a, op.length);
+        b = Arrays.copyOf(b, op.length);
+        r = Arrays.copyOf(r, op.length);
+    }
+
+    // ---------------- Operandos ----------------
+
+    /** Código del operando (internándolo si hace falta); NONE para null. */
+    public int encode(Operand o) {
+        if (o == null) return NONE;
+        if (o instanceof Temp t && t.version() == 0 && t.id() <= MASK) return t.id();
+        Integer idx = poolIndex.get(o);
+        if (idx == null) {
+            idx = pool.size();
+            if (idx > MASK) throw new IllegalStateException("tabla de operandos llena en " + name);
+            pool.add(o);
+            poolIndex.put(o, idx);
+        }
+        return (kindOf(o) << SHIFT) | idx;
+    }
+
+    public Operand decode(int code) {
+        if (code == NONE) return null;
+        return (kind(code) == K_TEMP) ? new Temp(code & MASK) : pool.get(code & MASK);
+    }
+
+    private static int kindOf(Operand o) {
+        if (o instanceof Operand.Name) return K_NAME;
+        if (o instanceof Operand.IntConst) return K_INT;
+        if (o instanceof Operand.CharConst) return K_CHAR;
+        if (o instanceof Operand.StrConst) return K_STR;
+        return K_LABEL;
+    }
+
+    public static int kind(int code) {
+        return code >>> SHIFT;
+    }
+
+    /** Temp o Var (lo que se define y se lee). */
+    public static boolean isName(int code) {
+        return code != NONE && (kind(code) == K_TEMP || kind(code) == K_NAME);
+    }
+
+    /** Valor de un literal int/char. */
+    public int constValue(int code) {
+        return Operand.constValue(pool.get(code & MASK));
+    }
+
+    // ---------------- Consultas ----------------
+
+    /** Instrucciones vivas (sin contar las borradas). */
+    public int size() {
+        return size - deleted;
+    }
+
+    /** Operandos distintos en la tabla interna. */
+    public int poolSize() {
+        return pool.size();
+    }
+
+    /** Bytes aproximados de los arreglos (sin la tabla interna). */
+    public long arrayBytes() {
+        return (long) op.length * (1 + 3 * 4);
+    }
+
+    private TacInstr instrAt(int k) {
+        return new TacInstr(OPS[op[k]], decode(a[k]), decode(b[k]), decode(r[k]));
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Recorrido secuencial sobre las instrucciones vivas.
+     * <pre>
+     *   for (PackedTac.Cursor c = p.cursor(); c.next(); ) {
+     *       if (c.op() == TacOp.MOV &amp;&amp; c.a() == c.r()) c.remove();
+     *   }
+     * </pre>
+     */
+    public final class Cursor {
+        private int pos = -1;
+
+        private Cursor() { }
+
+        /** Avanza a la siguiente instrucción viva; false al terminar. */
+        public boolean next() {
+            do {
+                pos++;
+            } while (pos < size && op[pos] == DELETED);
+            return pos < size;
+        }
+
+        /** Índice en los arreglos (estable hasta el próximo compact()). */
+        public int index() {
+            return pos;
+        }
+
+        public TacOp op() {
+            return OPS[op[pos]];
+        }
+
+        public int a() {
+            return a[pos];
+        }
+
+        public int b() {
+            return b[pos];
+        }
+
+        public int r() {
+            return r[pos];
+        }
+
+        public Operand operandA() {
+            return decode(a[pos]);
+        }
+
+        public Operand operandB() {
+            return decode(b[pos]);
+        }
+
+        public Operand operandR() {
+            return decode(r[pos]);
+        }
+
+        /** La instrucción actual como TacInstr (se crea en cada llamada). */
+        public TacInstr instr() {
+            return instrAt(pos);
+        }
+
+        /** Reemplaza la instrucción actual (si estaba borrada, vuelve a estar viva). */
+        public void set(TacOp o, int ca, int cb, int cr) {
+            if (op[pos] == DELETED) deleted--;
+            op[pos] = (byte) o.ordinal();
+            a[pos] = ca;
+            b[pos] = cb;
+            r[pos] = cr;
+        }
+
+        public void set(TacInstr i) {
+            set(i.op, encode(i.a), encode(i.b), encode(i.r));
+        }
+
+        /** Borra la instrucción actual (el cursor sigue desde la próxima). */
+        public void remove() {
+            if (op[pos] == DELETED) return;
+            op[pos] = DELETED;
+            deleted++;
+        }
+    }
+
+    @Override public String toString() {
+        return unpack().toString();
+    }
+}
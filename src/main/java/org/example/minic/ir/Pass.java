@@ -0,0 +1,22 @@
+package org.example.minic.ir;
+
+/**
+ * Pasada de optimización sobre el CFG de una función.
+ * El PassManager se encarga de construir/destruir SSA según needsSsa().
+ */
+public interface Pass {
+
+    /** Nombre con el que se registra y se pide en --passes. */
+    String name();
+
+    /** true si la pasada requiere el CFG en forma SSA. */
+    default boolean needsSsa() {
+        return false;
+    }
+
+    /**
+     * Aplica la pasada a una función del programa.
+     * Devuelve cuántos cambios hizo (0 = nada; lo usa la iteración a punto fijo).
+     */
+    int run(ControlFlowGraph cfg, TacProgram program);
+}
@@ -0,0 +1,263 @@
+package org.example.minic.ir;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Pipeline de pasadas sobre el TAC.
+ * - Las pasadas se registran por nombre (register/lookup).
+ * - Un pipeline es una lista de pasos; un paso es una pasada o un grupo que
+ *   se repite hasta que ninguna de sus pasadas cambia nada (o maxIter vueltas).
+ * - SSA se construye antes de la primera pasada que lo necesite y se destruye
+ *   al final de cada función.
+ * - Con timing activado acumula, por pasada, tiempo de pared y la variación
+ *   en cantidad de instrucciones (code + phis).
+ * - Las funciones son independientes: con un pool (-j) se optimizan en
+ *   paralelo; cada una junta sus estadísticas aparte y se suman al terminar.
+ * - Las funciones de program.packed se desempaquetan recién al optimizarlas,
+ *   así el TAC completo de todo el programa no está en memoria a la vez.
+ */
+public class PassManager {
+
+    private record SimplePass(String name, boolean needsSsa,
+                              ToIntBiFunction<ControlFlowGraph, TacProgram> body) implements Pass {
+        @Override public int run(ControlFlowGraph cfg, TacProgram program) {
+            return body.applyAsInt(cfg, program);
+        }
+    }
+
+    /** Paso del pipeline: una o más pasadas; si fixedPoint, se repiten hasta no cambiar. */
+    private record Step(List<Pass> passes, boolean fixedPoint, int maxIter) { }
+
+    private static final class Stat {
+        int runs;
+        int changes;
+        int delta;
+        long nanos;
+    }
+
+    private static final Map<String, Pass> REGISTRY = new LinkedHashMap<>();
+
+    static {
+        register(new SimplePass("fold", false, (cfg, p) -> TacOptimizer.foldConstants(cfg)));
+        register(new SimplePass("dce", false, (cfg, p) -> DeadCodeElimination.run(cfg)));
+        register(new SimplePass("rdconst", false, (cfg, p) -> ReachingConstants.run(cfg)));
+        register(new SimplePass("cse", false, (cfg, p) -> CommonSubexpressions.run(cfg)));
+        register(new SimplePass("sccp", true, (cfg, p) -> ConstantPropagation.run(cfg)));
+        register(new SimplePass("copyprop", true, (cfg, p) -> CopyPropagation.run(cfg)));
+        register(new SimplePass("gvn", true, (cfg, p) -> ValueNumbering.run(cfg)));
+        register(new SimplePass("licm", true, (cfg, p) -> LoopInvariantCodeMotion.run(cfg, functionNames(p))));
+        register(new SimplePass("ivsr", true, (cfg, p) -> InductionVariables.run(cfg)));
+    }
+
+    public static void register(Pass p) {
+        REGISTRY.put(p.name(), p);
+    }
+
+    /** Nombres registrados, en orden de registro. */
+    public static Set<String> registered() {
+        return Collections.unmodifiableSet(REGISTRY.keySet());
+    }
+
+    public static Pass lookup(String name) {
+        Pass p = REGISTRY.get(name);
+        if (p == null) {
+            throw new IllegalArgumentException("pasada desconocida: " + name + " (disponibles: " + String.join(",", REGISTRY.keySet()) + ")");
+        }
+        return p;
+    }
+
+    private static Set<String> functionNames(TacProgram p) {
+        Set<String> out = new HashSet<>(p.declared);
+        for (TacFunction f : p.functions) out.add(f.name);
+        return out;
+    }
+
+    // ---------------- Pipelines ----------------
+
+    private final List<Step> steps = new ArrayList<>();
+    private final Map<String, Stat> stats = new LinkedHashMap<>();
+    private boolean timing = false;
+
+    public PassManager add(String name) {
+        steps.add(new Step(List.of(lookup(name)), false, 1));
+        return this;
+    }
+
+    /** Grupo que se repite (hasta maxIter veces) mientras alguna pasada cambie algo. */
+    public PassManager addFixedPoint(int maxIter, String... names) {
+        List<Pass> ps = new ArrayList<>();
+        for (String n : names) ps.add(lookup(n));
+        steps.add(new Step(ps, true, maxIter));
+        return this;
+    }
+
+    /**
+     * Pipeline por nivel:
+     * 0 = nada, 1 = folding, rdconst, cse y dce (sin SSA), 2 = + SSA (sccp, copyprop, gvn, licm, ivsr),
+     * 3 = como 2 pero con los grupos escalares iterados a punto fijo.
+     */
+    public static PassManager forLevel(int level) {
+        PassManager pm = new PassManager();
+        if (level <= 0) return pm;
+        pm.add("fold");
+        if (level == 1) return pm.add("rdconst").add("fold").add("cse").add("dce");
+        if (level == 2) {
+            return pm.add("sccp").add("copyprop").add("gvn").add("licm").add("ivsr").add("dce");
+        }
+        return pm.addFixedPoint(4, "sccp", "copyprop", "gvn", "dce")
+                .add("licm").add("ivsr")
+                .addFixedPoint(4, "sccp", "copyprop", "gvn", "dce");
+    }
+
+    /** Pipeline a partir de "a,b,c" (como en --passes=a,b,c). */
+    public static PassManager parse(String spec) {
+        PassManager pm = new PassManager();
+        for (String n : spec.split(",")) {
+            if (!n.isBlank()) pm.add(n.trim());
+        }
+        return pm;
+    }
+
+    public PassManager setTiming(boolean on) {
+        this.timing = on;
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return steps.isEmpty();
+    }
+
+    // ---------------- Ejecución ----------------
+
+    public TacProgram run(TacProgram in) {
+        stats.clear();
+        TacProgram out = new TacProgram();
+        out.globals.addAll(in.globals);
+        out.declared.addAll(in.declared);
+
+        for (TacFunction f : in.functions) {
+            out.functions.add(run(f, in));
+        }
+        for (int k = 0; k < in.packed.size(); k++) {
+            out.functions.add(run(in.packed.set(k, null).unpack(), in));
+        }
+        in.packed.clear();
+        return out;
+    }
+
+    /** Como run(TacProgram), optimizando las funciones en pool; el resultado queda en orden de fuente. */
+    public TacProgram run(TacProgram in, ForkJoinPool pool) {
+        stats.clear();
+        TacProgram out = new TacProgram();
+        out.globals.addAll(in.globals);
+        out.declared.addAll(in.declared);
+
+        List<ForkJoinTask<TacFunction>> tasks = new ArrayList<>();
+        for (TacFunction f : in.functions) {
+            tasks.add(pool.submit(() -> run(f, in)));
+        }
+        for (PackedTac p : in.packed) {
+            tasks.add(pool.submit(() -> run(p.unpack(), in)));
+        }
+        for (ForkJoinTask<TacFunction> t : tasks) {
+            out.functions.add(t.join());
+        }
+        in.packed.clear();
+        return out;
+    }
+
+    /**
+     * Optimiza una sola función de program (modo pipeline). Las estadísticas
+     * se acumulan entre llamadas; run(TacProgram) las reinicia.
+     */
+    public TacFunction run(TacFunction f, TacProgram program) {
+        Map<String, Stat> local = new LinkedHashMap<>();
+        ControlFlowGraph cfg = ControlFlowGraph.build(f);
+        // quitar bloques inalcanzables (p.ej. código tras un return)
+        cfg.removeUnreachable();
+        boolean ssa = false;
+        for (Step s : steps) {
+            int iter = 0;
+            int changed;
+            do {
+                changed = 0;
+                for (Pass p : s.passes()) {
+                    if (p.needsSsa() && !ssa) {
+                        timed(local, "ssa", cfg, () -> {
+                            SsaBuilder.construct(cfg);
+                            return 0;
+                        });
+                        ssa = true;
+                    }
+                    changed += timed(local, p.name(), cfg, () -> p.run(cfg, program));
+                }
+                iter++;
+            } while (s.fixedPoint() && changed > 0 && iter < s.maxIter());
+        }
+        if (ssa) {
+            timed(local, "out-of-ssa", cfg, () -> {
+                SsaDestructor.destruct(cfg);
+                return 0;
+            });
+        }
+        merge(local);
+        return cfg.toFunction();
+    }
+
+    // todas las funciones corren los mismos pasos: el orden de las claves no depende de cuál llega primero
+    private synchronized void merge(Map<String, Stat> local) {
+        local.forEach((name, s) -> {
+            Stat st = stats.computeIfAbsent(name, k -> new Stat());
+            st.runs += s.runs;
+            st.changes += s.changes;
+            st.delta += s.delta;
+            st.nanos += s.nanos;
+        });
+    }
+
+    private interface Body {
+        int run();
+    }
+
+    private int timed(Map<String, Stat> stats, String name, ControlFlowGraph cfg, Body body) {
+        Stat st = stats.computeIfAbsent(name, k -> new Stat());
+        int before = timing ? cfg.instructionCount() : 0;
+        long t0 = timing ? System.nanoTime() : 0;
+        int n = body.run();
+        if (timing) {
+            st.nanos += System.nanoTime() - t0;
+            st.delta += cfg.instructionCount() - before;
+        }
+        st.runs++;
+        st.changes += n;
+        return n;
+    }
+
+    /** Pasada -> cambios acumulados en la última corrida (sin ssa/out-of-ssa). */
+    public synchronized Map<String, Integer> getChangeCounts() {
+        Map<String, Integer> out = new LinkedHashMap<>();
+        stats.forEach((k, v) -> {
+            if (REGISTRY.containsKey(k)) out.put(k, v.changes);
+        });
+        return out;
+    }
+
+    /** Tabla de --time-passes: corridas, tiempo de pared y delta de instrucciones. */
+    public synchronized String timingReport() {
+        StringBuilder sb = new StringBuilder("=== pass timing ===\n");
+        sb.append(String.format("%-12s %6s %10s %8s%n", "pass", "runs", "time(ms)", "instrs"));
+        long total = 0;
+        int delta = 0;
+        for (Map.Entry<String, Stat> e : stats.entrySet()) {
+            Stat s = e.getValue();
+            sb.append(String.format("%-12s %6d %10.3f %+8d%n", e.getKey(), s.runs, s.nanos / 1e6, s.delta));
+            total += s.nanos;
+            delta += s.delta;
+        }
+        sb.append(String.format("%-12s %6s %10.3f %+8d%n", "total", "", total / 1e6, delta));
+        return sb.toString();
+    }
+}
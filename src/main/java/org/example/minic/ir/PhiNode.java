@@ -0,0 +1,33 @@
+package org.example.minic.ir;
+
+import org.example.minic.ir.Operand.Name;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Función phi de SSA al inicio de un bloque: dest = phi(arg de cada predecesor).
+ * var es el nombre original (antes de renombrar) de la variable.
+ */
+public class PhiNode {
+    public final Name var;
+    public Name dest;
+    public final Map<BasicBlock, Operand> args = new LinkedHashMap<>();
+
+    public PhiNode(Name var) {
+        this.var = var;
+        this.dest = var;
+    }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(dest).append(" = phi ");
+        boolean first = true;
+        for (Map.Entry<BasicBlock, Operand> e : args.entrySet()) {
+            if (!first) sb.append(", ");
+            sb.append("[").append(e.getValue()).append(", ").append(e.getKey().name()).append("]");
+            first = false;
+        }
+        return sb.toString();
+    }
+}
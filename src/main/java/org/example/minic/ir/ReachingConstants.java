@@ -0,0 +1,70 @@
+package org.example.minic.ir;
+
+import org.example.minic.ir.Operand.Name;
+
+import java.util.*;
+
+/**
+ * Propagación de constantes sobre TAC sin SSA, guiada por
+ * {@link ReachingDefinitions}.
+ * - Un uso de x pasa a leer el literal c si todas las defs de x que lo
+ *   alcanzan son x = c (el mismo c) y alguna domina al uso: así x está
+ *   definida en todo camino (aunque sea un param o una local sin inicializar).
+ * - Dentro del bloque manda la última def anterior al uso.
+ * Los binarios que quedan con dos literales los pliega después fold.
+ */
+public final class ReachingConstants {
+
+    private ReachingConstants() { }
+
+    /** Devuelve cuántas instrucciones cambió. */
+    public static int run(ControlFlowGraph cfg) {
+        ReachingDefinitions rd = new ReachingDefinitions(cfg);
+        if (rd.size() == 0) return 0;
+        DominatorTree dt = new DominatorTree(cfg);
+        Map<Object, BasicBlock> blockOf = new IdentityHashMap<>();
+        for (BasicBlock b : cfg.blocks) {
+            for (PhiNode p : b.phis) blockOf.put(p, b);
+            for (TacInstr i : b.code) blockOf.put(i, b);
+        }
+
+        int n = 0;
+        for (BasicBlock b : cfg.blocks) {
+            // valor de cada nombre ya definido en el bloque: su literal, o null
+            Map<Operand, Operand> local = new HashMap<>();
+            for (PhiNode p : b.phis) local.put(p.dest, null);
+            Map<Operand, Operand> atEntry = new HashMap<>();
+            for (ListIterator<TacInstr> it = b.code.listIterator(); it.hasNext(); ) {
+                TacInstr i = it.next();
+                TacInstr ni = i.mapUses(u -> {
+                    Operand c = local.containsKey(u)
+                            ? local.get(u)
+                            : atEntry.computeIfAbsent(u, x -> constantAt(rd, dt, blockOf, b, (Name) x));
+                    return (c != null && c != u) ? c : u;
+                });
+                if (!ni.uses().equals(i.uses())) {
+                    it.set(ni);
+                    n++;
+                }
+                Name d = ni.def();
+                if (d != null) local.put(d, (ni.op == TacOp.MOV && Operand.isConst(ni.a)) ? ni.a : null);
+            }
+        }
+        return n;
+    }
+
+    /** Literal que tiene x al entrar a b, o x mismo si no se sabe. */
+    private static Operand constantAt(ReachingDefinitions rd, DominatorTree dt,
+                                      Map<Object, BasicBlock> blockOf, BasicBlock b, Name x) {
+        Operand c = null;
+        boolean dominated = false;
+        for (Object site : rd.reaching(b, x)) {
+            if (!(site instanceof TacInstr i) || i.op != TacOp.MOV || !Operand.isConst(i.a)) return x;
+            if (c != null && !c.equals(i.a)) return x;
+            c = i.a;
+            BasicBlock db = blockOf.get(i);
+            if (db != b && dt.dominates(db, b)) dominated = true;
+        }
+        return dominated ? c : x;
+    }
+}
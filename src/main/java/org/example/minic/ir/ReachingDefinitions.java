@@ -0,0 +1,102 @@
+package org.example.minic.ir;
+
+import org.example.minic.ir.Operand.Name;
+
+import java.util.*;
+
+/**
+ * Definiciones que alcanzan cada bloque (hacia adelante, unión).
+ * Cada def es una instrucción con def() o un phi; se numeran en orden de
+ * layout. Los params no cuentan como def (llegan desde la entrada).
+ */
+public final class ReachingDefinitions {
+
+    private final List<Object> defs = new ArrayList<>();
+    private final List<Name> defName = new ArrayList<>();
+    private final Map<Name, Bits> defsOf = new HashMap<>();
+    private final Dataflow.Result result;
+
+    public ReachingDefinitions(ControlFlowGraph cfg) {
+        for (BasicBlock b : cfg.blocks) {
+            for (PhiNode p : b.phis) addDef(p, p.dest);
+            for (TacInstr i : b.code) if (i.def() != null) addDef(i, i.def());
+        }
+        int width = defs.size();
+        Map<Name, Bits> sets = new HashMap<>();
+        for (int k = 0; k < width; k++) {
+            sets.computeIfAbsent(defName.get(k), n -> new Bits(width)).set(k);
+        }
+        defsOf.putAll(sets);
+        result = Dataflow.solve(cfg, new Problem(cfg, width));
+    }
+
+    private void addDef(Object site, Name n) {
+        defs.add(site);
+        defName.add(n);
+    }
+
+    /** Sitio de la def k: TacInstr o PhiNode. */
+    public Object def(int k) {
+        return defs.get(k);
+    }
+
+    public Name nameOf(int k) {
+        return defName.get(k);
+    }
+
+    public int size() {
+        return defs.size();
+    }
+
+    public Bits reachingIn(BasicBlock b) {
+        return result.atEntry(b);
+    }
+
+    public Bits reachingOut(BasicBlock b) {
+        return result.atExit(b);
+    }
+
+    /** Defs de n que llegan a la entrada de b. */
+    public List<Object> reaching(BasicBlock b, Name n) {
+        List<Object> out = new ArrayList<>();
+        Bits mine = defsOf.get(n);
+        if (mine == null) return out;
+        Bits in = reachingIn(b);
+        for (int k = mine.nextSetBit(0); k >= 0; k = mine.nextSetBit(k + 1)) {
+            if (in.get(k)) out.add(defs.get(k));
+        }
+        return out;
+    }
+
+    private final class Problem extends DataflowProblem.GenKill {
+        Problem(ControlFlowGraph cfg, int width) {
+            super(cfg, width);
+            int k = 0;
+            for (BasicBlock b : cfg.blocks) {
+                Bits g = gen[b.id], kl = kill[b.id];
+                int defsInBlock = b.phis.size();
+                for (TacInstr i : b.code) if (i.def() != null) defsInBlock++;
+                // cada def mata a las otras del mismo nombre; gana la última del bloque
+                for (int j = k; j < k + defsInBlock; j++) {
+                    Bits same = defsOf.get(defName.get(j));
+                    g.andNot(same);
+                    kl.or(same);
+                    g.set(j);
+                }
+                k += defsInBlock;
+            }
+        }
+
+        @Override public boolean forward() {
+            return true;
+        }
+
+        @Override public Meet meet() {
+            return Meet.UNION;
+        }
+
+        @Override public Bits boundary() {
+            return new Bits(width());
+        }
+    }
+}
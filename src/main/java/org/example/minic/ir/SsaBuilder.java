@@ -0,0 +1,131 @@
+package org.example.minic.ir;
+
+import org.example.minic.ir.Operand.Name;
+
+import java.util.*;
+
+/**
+ * Pasa un CFG a forma SSA (Cytron et al.):
+ * 1) phis en la frontera de dominancia iterada de cada definición, solo para
+ *    nombres leídos en algún bloque antes de definirse ahí (semi-pruned);
+ * 2) renombrado recorriendo el árbol de dominadores: cada def recibe un
+ *    versión nueva (se imprime "x.N"). La versión 0 es el nombre original
+ *    (valor de entrada: params o variables sin inicializar).
+ */
+public final class SsaBuilder {
+
+    private final ControlFlowGraph cfg;
+    private final DominatorTree dom;
+    private final Map<Name, Deque<Name>> stacks = new HashMap<>();
+    private final Map<Name, Integer> counters = new HashMap<>();
+    private final Set<Name> taken = new HashSet<>();
+
+    private SsaBuilder(ControlFlowGraph cfg) {
+        this.cfg = cfg;
+        this.dom = new DominatorTree(cfg);
+    }
+
+    public static void construct(ControlFlowGraph cfg) {
+        cfg.removeUnreachable();
+        SsaBuilder b = new SsaBuilder(cfg);
+        b.placePhis();
+        b.rename();
+    }
+
+    // ---------------- Phis ----------------
+
+    private void placePhis() {
+        Set<Name> global = new HashSet<>();
+        Map<Name, Set<BasicBlock>> defsites = new LinkedHashMap<>();
+        for (BasicBlock b : cfg.blocks) {
+            Set<Name> killed = new HashSet<>();
+            for (TacInstr i : b.code) {
+                for (Name u : i.uses()) {
+                    if (!killed.contains(u)) global.add(u);
+                    taken.add(u);
+                }
+                Name d = i.def();
+                if (d != null) {
+                    killed.add(d);
+                    taken.add(d);
+                    defsites.computeIfAbsent(d, k -> new LinkedHashSet<>()).add(b);
+                }
+            }
+        }
+        taken.addAll(cfg.function().params);
+
+        for (Map.Entry<Name, Set<BasicBlock>> e : defsites.entrySet()) {
+            Name var = e.getKey();
+            if (!global.contains(var)) continue;
+            Set<BasicBlock> inWork = new HashSet<>(e.getValue());
+            Deque<BasicBlock> work = new ArrayDeque<>(e.getValue());
+            Set<BasicBlock> hasPhi = new HashSet<>();
+            while (!work.isEmpty()) {
+                BasicBlock b = work.poll();
+                for (BasicBlock d : dom.frontier(b)) {
+                    if (!hasPhi.add(d)) continue;
+                    d.phis.add(new PhiNode(var));
+                    if (inWork.add(d)) work.add(d);
+                }
+            }
+        }
+    }
+
+    // ---------------- Renombrado ----------------
+
+    private Name newName(Name var) {
+        Name base = var.withVersion(0);
+        Name n;
+        do {
+            n = base.withVersion(counters.merge(base, 1, Integer::sum));
+        } while (!taken.add(n));
+        stacks.computeIfAbsent(var, k -> new ArrayDeque<>()).push(n);
+        return n;
+    }
+
+    private Operand top(Operand var) {
+        Deque<Name> s = stacks.get(var);
+        return (s == null || s.isEmpty()) ? var : s.peek();
+    }
+
+    private void rename() {
+        // recorrido del árbol de dominadores sin recursión (funciones grandes)
+        Deque<BasicBlock> work = new ArrayDeque<>();
+        Deque<List<Name>> pushedStack = new ArrayDeque<>();
+        Set<BasicBlock> entered = new HashSet<>();
+        work.push(cfg.entry());
+        while (!work.isEmpty()) {
+            BasicBlock b = work.peek();
+            if (entered.add(b)) {
+                pushedStack.push(renameBlock(b));
+                List<BasicBlock> ch = dom.children(b);
+                for (int k = ch.size() - 1; k >= 0; k--) work.push(ch.get(k));
+            } else {
+                work.pop();
+                for (Name v : pushedStack.pop()) stacks.get(v).pop();
+            }
+        }
+    }
+
+    private List<Name> renameBlock(BasicBlock b) {
+        List<Name> pushed = new ArrayList<>();
+        for (PhiNode p : b.phis) {
+            p.dest = newName(p.var);
+            pushed.add(p.var);
+        }
+        for (int k = 0; k < b.code.size(); k++) {
+            TacInstr i = b.code.get(k);
+            TacInstr n = i.mapUses(this::top);
+            Name d = i.def();
+            if (d != null) {
+                n = n.withDef(newName(d));
+                pushed.add(d);
+            }
+            b.code.set(k, n);
+        }
+        for (BasicBlock s : b.succs) {
+            for (PhiNode p : s.phis) p.args.put(b, top(p.var));
+        }
+        return pushed;
+    }
+}
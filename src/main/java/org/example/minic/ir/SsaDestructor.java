@@ -0,0 +1,70 @@
+package org.example.minic.ir;
+
+import org.example.minic.ir.Operand.Name;
+
+import java.util.*;
+
+/**
+ * Saca un CFG de forma SSA: cada phi se convierte en copias al final de sus
+ * predecesores.
+ * - Las aristas desde un salto condicional se parten antes (problema de la
+ *   copia perdida).
+ * - Las copias de una misma arista son paralelas y se secuencializan; los
+ *   ciclos (problema del swap) se rompen con un temp.
+ */
+public final class SsaDestructor {
+
+    private SsaDestructor() { }
+
+    public static void destruct(ControlFlowGraph cfg) {
+        for (BasicBlock b : new ArrayList<>(cfg.blocks)) {
+            if (b.phis.isEmpty()) continue;
+            for (BasicBlock p : new ArrayList<>(b.preds)) {
+                TacInstr t = p.terminator();
+                boolean conditional = t != null && (t.op == TacOp.IFZ || t.op == TacOp.IFNZ);
+                if (conditional || p.succs.size() > 1) cfg.splitEdge(p, b);
+            }
+        }
+
+        for (BasicBlock b : cfg.blocks) {
+            if (b.phis.isEmpty()) continue;
+            for (BasicBlock p : b.preds) {
+                Map<Name, Operand> copies = new LinkedHashMap<>();
+                for (PhiNode phi : b.phis) {
+                    Operand src = phi.args.get(p);
+                    if (src != null && !src.equals(phi.dest)) copies.put(phi.dest, src);
+                }
+                List<TacInstr> seq = sequentialize(copies, cfg);
+                TacInstr t = p.terminator();
+                int at = (t != null) ? p.code.size() - 1 : p.code.size();
+                p.code.addAll(at, seq);
+            }
+        }
+        for (BasicBlock b : cfg.blocks) b.phis.clear();
+    }
+
+    /** Copias paralelas dst <- src como secuencia de MOV equivalente. */
+    static List<TacInstr> sequentialize(Map<Name, Operand> copies, ControlFlowGraph cfg) {
+        List<TacInstr> out = new ArrayList<>();
+        Map<Name, Operand> pending = new LinkedHashMap<>(copies);
+        while (!pending.isEmpty()) {
+            Name ready = null;
+            for (Name dst : pending.keySet()) {
+                if (!pending.containsValue(dst)) {
+                    ready = dst;
+                    break;
+                }
+            }
+            if (ready != null) {
+                out.add(TacInstr.mov(pending.remove(ready), ready));
+                continue;
+            }
+            // todo dst todavía se lee: ciclo. Guardar un dst en un temp y redirigir sus lecturas.
+            Name dst = pending.keySet().iterator().next();
+            Name tmp = cfg.newTemp();
+            out.add(TacInstr.mov(dst, tmp));
+            pending.replaceAll((d, s) -> s.equals(dst) ? tmp : s);
+        }
+        return out;
+    }
+}
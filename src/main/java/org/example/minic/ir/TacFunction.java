@@ -1,11 +1,13 @@
 package org.example.minic.ir;
 
+import org.example.minic.ir.Operand.Var;
+
 import java.util.ArrayList;
 import java.util.List;
 
 public class TacFunction {
     public final String name;
-    public final List<String> params = new ArrayList<>();
+    public final List<Var> params = new ArrayList<>();
     public final List<TacInstr> code = new ArrayList<>();
 
     public TacFunction(String name) {
@@ -24,5 +26,3 @@ public class TacFunction {
         return sb.toString();
     }
 }
-
-
@@ -4,6 +4,12 @@ import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.TerminalNode;
 import org.example.minic.parser.MiniCBaseVisitor;
+import org.example.minic.ir.Operand.CharConst;
+import org.example.minic.ir.Operand.IntConst;
+import org.example.minic.ir.Operand.Label;
+import org.example.minic.ir.Operand.StrConst;
+import org.example.minic.ir.Operand.Temp;
+import org.example.minic.ir.Operand.Var;
 import org.example.minic.parser.MiniCParser;
 import org.example.minic.semantics.CollectSymbols;
 import org.example.minic.semantics.FuncSymbol;
@@ -15,18 +21,23 @@ import org.example.minic.semantics.VarSymbol;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Genera TAC (three-address code) desde el parse tree.
  * Notas clave para este Mini-C:
- * - Variables locales/params se representan como "slots" (sus nombres).
+ * - Variables locales/params son Var (un id por nombre dentro de la función);
+ *   los resultados intermedios son Temp.
  * - Variables/arreglos globales se representan como etiquetas en .data y se
- *   acceden mediante LOAD/STORE con offset en bytes.
+ *   acceden mediante LOAD/STORE (base = Label) con offset en bytes.
+ * - Los literales string van al pool del programa (StrConst).
  * - Arreglos usan indexación 1-based: offset = (idx-1).
  */
 
-public final class TacGen extends MiniCBaseVisitor<String> {
+public final class TacGen extends MiniCBaseVisitor<Operand> {
 
     private final SymbolTable st;
     private final CollectSymbols cs;
@@ -36,6 +47,12 @@ public final class TacGen extends MiniCBaseVisitor<String> {
 
     private int tmpId = 0;
     private int lblId = 0;
+    // vars de la función actual, por nombre
+    private final Map<String, Var> vars = new HashMap<>();
+    // pool de strings: literal -> StrConst
+    private final Map<String, StrConst> strings = new HashMap<>();
+    // modo pipeline: recibe cada función terminada (no se guarda en program)
+    private Consumer<TacFunction> sink;
 
     public TacGen(SymbolTable st, CollectSymbols cs) {
         this.st = st;
@@ -47,6 +64,17 @@ public final class TacGen extends MiniCBaseVisitor<String> {
         return program;
     }
 
+    /**
+     * Modo por función (--pipeline, o con -O para empaquetarla hasta que se
+     * optimice): cada función se entrega a sink apenas se genera, en vez
+     * de acumularse en program.functions, y después se sueltan su subárbol
+     * del parse tree y sus scopes. program.globals y program.declared se
+     * llenan antes de la primera función.
+     */
+    public void setFunctionSink(Consumer<TacFunction> sink) {
+        this.sink = sink;
+    }
+
     // ---------------- Helpers ----------------
 
     private void emit(TacInstr i) {
@@ -55,8 +83,19 @@ public final class TacGen extends MiniCBaseVisitor<String> {
     }
 
 
-    private String newTemp() {
-        return "t" + (tmpId++);
+    private Temp newTemp() {
+        return new Temp(tmpId++);
+    }
+
+    private Var var(String name) {
+        return vars.computeIfAbsent(name, n -> new Var(vars.size(), n, 0));
+    }
+
+    private StrConst str(String literal) {
+        return strings.computeIfAbsent(literal, lit -> {
+            program.strings.add(lit);
+            return new StrConst(program.strings.size() - 1, lit);
+        });
     }
 
     private String newLabel(String prefix) {
@@ -97,13 +136,13 @@ public final class TacGen extends MiniCBaseVisitor<String> {
     }
 
     // Convierte boolean literals a inmediatos 0/1
-    private String boolLit(boolean v) {
-        return v ? "1" : "0";
+    private IntConst boolLit(boolean v) {
+        return Operand.of(v ? 1 : 0);
     }
 
-    private String subOne(String v) {
-        String t = newTemp();
-        emit(new TacInstr(TacOp.SUB, v, "1", t));
+    private Operand subOne(Operand v) {
+        Temp t = newTemp();
+        emit(new TacInstr(TacOp.SUB, v, Operand.of(1), t));
         return t;
     }
 
@@ -118,35 +157,137 @@ public final class TacGen extends MiniCBaseVisitor<String> {
      * dims = [d0,d1,...] y indices = [i0,i1,...] (cada i es una expr visitada).
      * Indexación es 1-based => se usa (i-1).
      */
-    private String offsetBytesForArray(int[] dims, List<String> indices) {
+    private Operand offsetBytesForArray(int[] dims, List<Operand> indices) {
         int n = Math.min(dims.length, indices.size());
         if (n == 0) {
-            return "0";
+            return Operand.of(0);
         }
 
         // ajustar cada índice: (idx - 1)
-        List<String> adj = new ArrayList<>(n);
+        List<Operand> adj = new ArrayList<>(n);
         for (int i = 0; i < n; i++) {
             adj.add(subOne(indices.get(i)));
         }
 
         // lin = (i0-1)
-        String lin = adj.get(0);
+        Operand lin = adj.get(0);
         // lin = lin * dim1 + (i1-1) ...
         for (int i = 1; i < n; i++) {
-            String tMul = newTemp();
-            emit(new TacInstr(TacOp.MUL, lin, Integer.toString(dims[i]), tMul));
-            String tAdd = newTemp();
+            Temp tMul = newTemp();
+            emit(new TacInstr(TacOp.MUL, lin, Operand.of(dims[i]), tMul));
+            Temp tAdd = newTemp();
             emit(new TacInstr(TacOp.ADD, tMul, adj.get(i), tAdd));
             lin = tAdd;
         }
 
         // bytes = lin * 4
-        String bytes = newTemp();
-        emit(new TacInstr(TacOp.MUL, lin, "4", bytes));
+        Temp bytes = newTemp();
+        emit(new TacInstr(TacOp.MUL, lin, Operand.of(4), bytes));
         return bytes;
     }
 
+    /**
+     * Genera saltos para una condición con corto circuito (&&, ||, !).
+     * tLbl/fLbl son los destinos si es verdadera/falsa; null = caer a la
+     * siguiente instrucción. Nunca materializa el 0/1 de && y ||.
+     */
+    private void genCond(ParseTree n, String tLbl, String fLbl) {
+        if (n instanceof MiniCParser.ExprContext e) {
+            genCond(e.assignment(), tLbl, fLbl);
+            return;
+        }
+        if (n instanceof MiniCParser.AssignmentContext a && a.ASSIGN() == null) {
+            genCond(a.logicalOr(), tLbl, fLbl);
+            return;
+        }
+        if (n instanceof MiniCParser.LogicalOrContext or) {
+            List<MiniCParser.LogicalAndContext> ops = or.logicalAnd();
+            if (ops.size() == 1) {
+                genCond(ops.get(0), tLbl, fLbl);
+                return;
+            }
+            // a || b: si a es verdadera ya no se evalúa b
+            String trueLbl = (tLbl != null) ? tLbl : newLabel("or_true");
+            for (int i = 0; i < ops.size() - 1; i++) {
+                genCond(ops.get(i), trueLbl, null);
+            }
+            genCond(ops.get(ops.size() - 1), tLbl, fLbl);
+            if (tLbl == null) emit(TacInstr.label(trueLbl));
+            return;
+        }
+        if (n instanceof MiniCParser.LogicalAndContext and) {
+            List<MiniCParser.EqualityContext> ops = and.equality();
+            if (ops.size() == 1) {
+                genCond(ops.get(0), tLbl, fLbl);
+                return;
+            }
+            // a && b: si a es falsa ya no se evalúa b
+            String falseLbl = (fLbl != null) ? fLbl : newLabel("and_false");
+            for (int i = 0; i < ops.size() - 1; i++) {
+                genCond(ops.get(i), null, falseLbl);
+            }
+            genCond(ops.get(ops.size() - 1), tLbl, fLbl);
+            if (fLbl == null) emit(TacInstr.label(falseLbl));
+            return;
+        }
+        if (n instanceof MiniCParser.EqualityContext eq && eq.relational().size() == 1) {
+            genCond(eq.relational(0), tLbl, fLbl);
+            return;
+        }
+        if (n instanceof MiniCParser.RelationalContext rel && rel.additive().size() == 1) {
+            genCond(rel.additive(0), tLbl, fLbl);
+            return;
+        }
+        if (n instanceof MiniCParser.AdditiveContext add && add.multiplicative().size() == 1) {
+            genCond(add.multiplicative(0), tLbl, fLbl);
+            return;
+        }
+        if (n instanceof MiniCParser.MultiplicativeContext mul && mul.unary().size() == 1) {
+            genCond(mul.unary(0), tLbl, fLbl);
+            return;
+        }
+        if (n instanceof MiniCParser.UnaryContext u) {
+            if (u.primary() != null) {
+                genCond(u.primary(), tLbl, fLbl);
+                return;
+            }
+            if (u.NOT() != null) {
+                // !a: intercambiar destinos
+                genCond(u.unary(), fLbl, tLbl);
+                return;
+            }
+        }
+        if (n instanceof MiniCParser.PrimaryContext p && p.ID() == null && p.expr() != null) {
+            genCond(p.expr(), tLbl, fLbl);
+            return;
+        }
+
+        // hoja: evaluar el valor y saltar sobre él
+        Operand v = visit(n);
+        if (tLbl != null) {
+            emit(new TacInstr(TacOp.IFNZ, v, new Label(tLbl), null));
+            if (fLbl != null) emit(TacInstr.jump(fLbl));
+        } else if (fLbl != null) {
+            emit(new TacInstr(TacOp.IFZ, v, new Label(fLbl), null));
+        }
+    }
+
+    /**
+     * && / || en contexto de valor: los saltos de genCond dejan 1 o 0 en un temp.
+     */
+    private Operand condValue(ParseTree ctx) {
+        Temp t = newTemp();
+        String falseLbl = newLabel("bool_false");
+        String endLbl = newLabel("bool_end");
+        genCond(ctx, null, falseLbl);
+        emit(TacInstr.mov(Operand.of(1), t));
+        emit(TacInstr.jump(endLbl));
+        emit(TacInstr.label(falseLbl));
+        emit(TacInstr.mov(Operand.of(0), t));
+        emit(TacInstr.label(endLbl));
+        return t;
+    }
+
     /**
      * Para forStmt con expr? expr? expr?: separa init/cond/step recorriendo children.
      */
@@ -174,7 +315,7 @@ public final class TacGen extends MiniCBaseVisitor<String> {
     // ---------------- Program / Decls ----------------
 
     @Override
-    public String visitProgram(MiniCParser.ProgramContext ctx) {
+    public Operand visitProgram(MiniCParser.ProgramContext ctx) {
         // 1) Registrar globales (escalares y arreglos) en .data
         for (ParseTree child : ctx.children) {
             if (child instanceof MiniCParser.VarDeclContext vd) {
@@ -196,33 +337,40 @@ public final class TacGen extends MiniCBaseVisitor<String> {
                     }
                     program.globals.add(new TacGlobal(name, bytes));
                 }
+            } else if (child instanceof MiniCParser.FunctionDeclContext fd) {
+                program.declared.add(fd.ID().getText());
             }
         }
 
         // 2) Generar TAC para funciones
-        for (ParseTree child : ctx.children) {
-            if (child instanceof MiniCParser.FunctionDeclContext fd) {
+        for (int k = 0; k < ctx.children.size(); k++) {
+            if (ctx.children.get(k) instanceof MiniCParser.FunctionDeclContext fd) {
                 visit(fd);
+                if (sink != null) {
+                    cs.forget(fd);
+                    ctx.children.set(k, null);
+                }
             }
         }
         return null;
     }
 
     @Override
-    public String visitFunctionDecl(MiniCParser.FunctionDeclContext ctx) {
+    public Operand visitFunctionDecl(MiniCParser.FunctionDeclContext ctx) {
         String fname = ctx.ID().getText();
         Type ret = Type.fromToken(ctx.type().getText());
 
         TacFunction fn = new TacFunction(fname);
+        vars.clear();
 
         // params
         if (ctx.paramList() != null) {
             for (MiniCParser.ParamContext p : ctx.paramList().param()) {
-                fn.params.add(p.ID().getText());
+                fn.params.add(var(p.ID().getText()));
             }
         }
 
-        program.functions.add(fn);
+        if (sink == null) program.functions.add(fn);
         TacFunction saved = curFn;
         int savedTmp = tmpId;
         curFn = fn;
@@ -233,13 +381,14 @@ public final class TacGen extends MiniCBaseVisitor<String> {
         curFn = saved;
         tmpId = savedTmp;
 
+        if (sink != null) sink.accept(fn);
         return null;
     }
 
     // ---------------- Statements ----------------
 
     @Override
-    public String visitBlock(MiniCParser.BlockContext ctx) {
+    public Operand visitBlock(MiniCParser.BlockContext ctx) {
         for (MiniCParser.StmtContext s : ctx.stmt()) {
             visit(s);
         }
@@ -247,55 +396,53 @@ public final class TacGen extends MiniCBaseVisitor<String> {
     }
 
     @Override
-    public String visitExprStmt(MiniCParser.ExprStmtContext ctx) {
+    public Operand visitExprStmt(MiniCParser.ExprStmtContext ctx) {
         if (ctx.expr() != null) visit(ctx.expr());
         return null;
     }
 
     @Override
-    public String visitReturnStmt(MiniCParser.ReturnStmtContext ctx) {
-        String v = (ctx.expr() != null) ? visit(ctx.expr()) : null;
+    public Operand visitReturnStmt(MiniCParser.ReturnStmtContext ctx) {
+        Operand v = (ctx.expr() != null) ? visit(ctx.expr()) : null;
         emit(new TacInstr(TacOp.RET, v, null, null));
         return null;
     }
 
     @Override
-    public String visitSelectionStmt(MiniCParser.SelectionStmtContext ctx) {
+    public Operand visitSelectionStmt(MiniCParser.SelectionStmtContext ctx) {
         String elseLbl = newLabel("else");
         String endLbl = newLabel("endif");
 
-        String cond = visit(ctx.expr());
-        // IFZ usa: a = cond, b = label
-        emit(new TacInstr(TacOp.IFZ, cond, elseLbl, null));
+        // la condición salta directo a else (corto circuito)
+        genCond(ctx.expr(), null, elseLbl);
         visit(ctx.stmt(0));
         if (ctx.ELSE() != null) {
             // GOTO/LABEL usan: a = label
-            emit(new TacInstr(TacOp.GOTO, endLbl, null, null));
-            emit(new TacInstr(TacOp.LABEL, elseLbl, null, null));
+            emit(TacInstr.jump(endLbl));
+            emit(TacInstr.label(elseLbl));
             visit(ctx.stmt(1));
-            emit(new TacInstr(TacOp.LABEL, endLbl, null, null));
+            emit(TacInstr.label(endLbl));
         } else {
-            emit(new TacInstr(TacOp.LABEL, elseLbl, null, null));
+            emit(TacInstr.label(elseLbl));
         }
         return null;
     }
 
     @Override
-    public String visitIterationStmt(MiniCParser.IterationStmtContext ctx) {
+    public Operand visitIterationStmt(MiniCParser.IterationStmtContext ctx) {
         String startLbl = newLabel("while");
         String endLbl = newLabel("endwhile");
 
-        emit(new TacInstr(TacOp.LABEL, startLbl, null, null));
-        String cond = visit(ctx.expr());
-        emit(new TacInstr(TacOp.IFZ, cond, endLbl, null));
+        emit(TacInstr.label(startLbl));
+        genCond(ctx.expr(), null, endLbl);
         visit(ctx.stmt());
-        emit(new TacInstr(TacOp.GOTO, startLbl, null, null));
-        emit(new TacInstr(TacOp.LABEL, endLbl, null, null));
+        emit(TacInstr.jump(startLbl));
+        emit(TacInstr.label(endLbl));
         return null;
     }
 
     @Override
-    public String visitForStmt(MiniCParser.ForStmtContext ctx) {
+    public Operand visitForStmt(MiniCParser.ForStmtContext ctx) {
         MiniCParser.ExprContext[] parts = splitForExprs(ctx);
         MiniCParser.ExprContext init = parts[0];
         MiniCParser.ExprContext cond = parts[1];
@@ -306,22 +453,21 @@ public final class TacGen extends MiniCBaseVisitor<String> {
         String startLbl = newLabel("for");
         String endLbl = newLabel("endfor");
 
-        emit(new TacInstr(TacOp.LABEL, startLbl, null, null));
+        emit(TacInstr.label(startLbl));
         if (cond != null) {
-            String c = visit(cond);
-            emit(new TacInstr(TacOp.IFZ, c, endLbl, null));
+            genCond(cond, null, endLbl);
         }
 
         visit(ctx.stmt());
 
         if (step != null) visit(step);
-        emit(new TacInstr(TacOp.GOTO, startLbl, null, null));
-        emit(new TacInstr(TacOp.LABEL, endLbl, null, null));
+        emit(TacInstr.jump(startLbl));
+        emit(TacInstr.label(endLbl));
         return null;
     }
 
     @Override
-    public String visitVarDecl(MiniCParser.VarDeclContext ctx) {
+    public Operand visitVarDecl(MiniCParser.VarDeclContext ctx) {
         // VarDecl puede aparecer en global o en bloque
         // Para globales, ya reservamos espacio en visitProgram()
         // Aquí sólo generamos MOV para inicializaciones locales
@@ -335,7 +481,7 @@ public final class TacGen extends MiniCBaseVisitor<String> {
             if (v == null) continue;
 
             if (idec.expr() == null) continue;
-            String rhs = visit(idec.expr());
+            Operand rhs = visit(idec.expr());
 
             if (inGlobal || isGlobal(v)) {
                 continue;
@@ -344,7 +490,7 @@ public final class TacGen extends MiniCBaseVisitor<String> {
             // Si es arreglo local no usado en tests, no intentamos reservar stack
             if (v.dims != null && v.dims.length > 0) continue;
 
-            emit(new TacInstr(TacOp.MOV, rhs, null, name));
+            emit(TacInstr.mov(rhs, var(name)));
         }
         return null;
     }
@@ -352,19 +498,19 @@ public final class TacGen extends MiniCBaseVisitor<String> {
     // ---------------- Expressions ----------------
 
     @Override
-    public String visitExpr(MiniCParser.ExprContext ctx) {
+    public Operand visitExpr(MiniCParser.ExprContext ctx) {
         return visit(ctx.assignment());
     }
 
     @Override
-    public String visitAssignment(MiniCParser.AssignmentContext ctx) {
+    public Operand visitAssignment(MiniCParser.AssignmentContext ctx) {
         if (ctx.ASSIGN() != null) {
             // lvalue '=' assignment
             MiniCParser.LvalueContext lv = ctx.lvalue();
             String base = lv.ID().getText();
             VarSymbol v = resolveVar(ctx, base);
 
-            String rhs = visit(ctx.assignment());
+            Operand rhs = visit(ctx.assignment());
 
             List<MiniCParser.ExprContext> idxNodes = lv.expr();
             if (idxNodes == null) idxNodes = Collections.emptyList();
@@ -372,55 +518,43 @@ public final class TacGen extends MiniCBaseVisitor<String> {
             if (idxNodes.isEmpty()) {
                 // escalar
                 if (v != null && isGlobal(v)) {
-                    emit(new TacInstr(TacOp.STORE, rhs, base, "0"));
+                    emit(new TacInstr(TacOp.STORE, rhs, new Label(base), Operand.of(0)));
                 } else {
-                    emit(new TacInstr(TacOp.MOV, rhs, null, base));
+                    emit(TacInstr.mov(rhs, var(base)));
                 }
                 return rhs;
             }
 
             // arreglo: solo soportamos globales (tests)
-            List<String> idxVals = new ArrayList<>();
+            List<Operand> idxVals = new ArrayList<>();
             for (MiniCParser.ExprContext e : idxNodes) idxVals.add(visit(e));
             int[] dims = (v != null) ? v.dims : new int[]{idxVals.size()};
-            String offBytes = offsetBytesForArray(dims, idxVals);
-            emit(new TacInstr(TacOp.STORE, rhs, base, offBytes));
+            Operand offBytes = offsetBytesForArray(dims, idxVals);
+            emit(new TacInstr(TacOp.STORE, rhs, new Label(base), offBytes));
             return rhs;
         }
         return visit(ctx.logicalOr());
     }
 
     @Override
-    public String visitLogicalOr(MiniCParser.LogicalOrContext ctx) {
-        String v = visit(ctx.logicalAnd(0));
-        for (int i = 1; i < ctx.logicalAnd().size(); i++) {
-            String r = visit(ctx.logicalAnd(i));
-            String t = newTemp();
-            emit(new TacInstr(TacOp.OR, v, r, t));
-            v = t;
-        }
-        return v;
+    public Operand visitLogicalOr(MiniCParser.LogicalOrContext ctx) {
+        if (ctx.logicalAnd().size() == 1) return visit(ctx.logicalAnd(0));
+        return condValue(ctx);
     }
 
     @Override
-    public String visitLogicalAnd(MiniCParser.LogicalAndContext ctx) {
-        String v = visit(ctx.equality(0));
-        for (int i = 1; i < ctx.equality().size(); i++) {
-            String r = visit(ctx.equality(i));
-            String t = newTemp();
-            emit(new TacInstr(TacOp.AND, v, r, t));
-            v = t;
-        }
-        return v;
+    public Operand visitLogicalAnd(MiniCParser.LogicalAndContext ctx) {
+        if (ctx.equality().size() == 1) return visit(ctx.equality(0));
+        return condValue(ctx);
     }
 
     @Override
-    public String visitEquality(MiniCParser.EqualityContext ctx) {
-        String v = visit(ctx.relational(0));
+    public Operand visitEquality(MiniCParser.EqualityContext ctx) {
+        Operand v = visit(ctx.relational(0));
         for (int i = 1; i < ctx.relational().size(); i++) {
-            String r = visit(ctx.relational(i));
+            Operand r = visit(ctx.relational(i));
             TerminalNode op = (TerminalNode) ctx.getChild(2 * i - 1);
-            String t = newTemp();
+            Temp t = newTemp();
             if (op.getSymbol().getType() == MiniCParser.EQ) {
                 emit(new TacInstr(TacOp.EQ, v, r, t));
             } else {
@@ -433,12 +567,12 @@ public final class TacGen extends MiniCBaseVisitor<String> {
     }
 
     @Override
-    public String visitRelational(MiniCParser.RelationalContext ctx) {
-        String v = visit(ctx.additive(0));
+    public Operand visitRelational(MiniCParser.RelationalContext ctx) {
+        Operand v = visit(ctx.additive(0));
         for (int i = 1; i < ctx.additive().size(); i++) {
-            String r = visit(ctx.additive(i));
+            Operand r = visit(ctx.additive(i));
             TerminalNode op = (TerminalNode) ctx.getChild(2 * i - 1);
-            String t = newTemp();
+            Temp t = newTemp();
             int tt = op.getSymbol().getType();
             if (tt == MiniCParser.LT) emit(new TacInstr(TacOp.LT, v, r, t));
             else if (tt == MiniCParser.LE) emit(new TacInstr(TacOp.LE, v, r, t));
@@ -450,12 +584,12 @@ public final class TacGen extends MiniCBaseVisitor<String> {
     }
 
     @Override
-    public String visitAdditive(MiniCParser.AdditiveContext ctx) {
-        String v = visit(ctx.multiplicative(0));
+    public Operand visitAdditive(MiniCParser.AdditiveContext ctx) {
+        Operand v = visit(ctx.multiplicative(0));
         for (int i = 1; i < ctx.multiplicative().size(); i++) {
-            String r = visit(ctx.multiplicative(i));
+            Operand r = visit(ctx.multiplicative(i));
             TerminalNode op = (TerminalNode) ctx.getChild(2 * i - 1);
-            String t = newTemp();
+            Temp t = newTemp();
             if (op.getSymbol().getType() == MiniCParser.PLUS) {
                 emit(new TacInstr(TacOp.ADD, v, r, t));
             } else {
@@ -467,12 +601,12 @@ public final class TacGen extends MiniCBaseVisitor<String> {
     }
 
     @Override
-    public String visitMultiplicative(MiniCParser.MultiplicativeContext ctx) {
-        String v = visit(ctx.unary(0));
+    public Operand visitMultiplicative(MiniCParser.MultiplicativeContext ctx) {
+        Operand v = visit(ctx.unary(0));
         for (int i = 1; i < ctx.unary().size(); i++) {
-            String r = visit(ctx.unary(i));
+            Operand r = visit(ctx.unary(i));
             TerminalNode op = (TerminalNode) ctx.getChild(2 * i - 1);
-            String t = newTemp();
+            Temp t = newTemp();
             int tt = op.getSymbol().getType();
             if (tt == MiniCParser.STAR) emit(new TacInstr(TacOp.MUL, v, r, t));
             else if (tt == MiniCParser.DIV) emit(new TacInstr(TacOp.DIV, v, r, t));
@@ -483,27 +617,30 @@ public final class TacGen extends MiniCBaseVisitor<String> {
     }
 
     @Override
-    public String visitUnary(MiniCParser.UnaryContext ctx) {
+    public Operand visitUnary(MiniCParser.UnaryContext ctx) {
         if (ctx.primary() != null) return visit(ctx.primary());
         // (NOT | MINUS) unary
         Token op = ctx.getStart();
-        String v = visit(ctx.unary());
+        Operand v = visit(ctx.unary());
         if (op.getType() == MiniCParser.NOT) {
-            String t = newTemp();
+            Temp t = newTemp();
             emit(new TacInstr(TacOp.NOT, v, null, t));
             return t;
         }
         // unary minus: 0 - v
-        String t = newTemp();
-        emit(new TacInstr(TacOp.SUB, "0", v, t));
+        Temp t = newTemp();
+        emit(new TacInstr(TacOp.SUB, Operand.of(0), v, t));
         return t;
     }
 
     @Override
-    public String visitPrimary(MiniCParser.PrimaryContext ctx) {
-        if (ctx.INT_LIT() != null) return ctx.INT_LIT().getText();
-        if (ctx.CHAR_LIT() != null) return ctx.CHAR_LIT().getText();
-        if (ctx.STR_LIT() != null) return ctx.STR_LIT().getText();
+    public Operand visitPrimary(MiniCParser.PrimaryContext ctx) {
+        if (ctx.INT_LIT() != null) return Operand.of((int) Long.parseLong(ctx.INT_LIT().getText()));
+        if (ctx.CHAR_LIT() != null) {
+            String lit = ctx.CHAR_LIT().getText();
+            return new CharConst(Operand.charCode(lit), lit);
+        }
+        if (ctx.STR_LIT() != null) return str(ctx.STR_LIT().getText());
         if (ctx.TRUE() != null) return boolLit(true);
         if (ctx.FALSE() != null) return boolLit(false);
 
@@ -512,17 +649,17 @@ public final class TacGen extends MiniCBaseVisitor<String> {
             String fname = ctx.ID().getText();
             List<MiniCParser.ExprContext> args = (ctx.argList() != null) ? ctx.argList().expr() : Collections.emptyList();
             for (MiniCParser.ExprContext a : args) {
-                String av = visit(a);
+                Operand av = visit(a);
                 emit(new TacInstr(TacOp.PARAM, av, null, null));
             }
 
             FuncSymbol f = resolveFunc(ctx, fname);
-            String ret = null;
+            Temp ret = null;
             if (f == null || f.type != Type.VOID) {
                 ret = newTemp();
             }
-            emit(new TacInstr(TacOp.CALL, fname, Integer.toString(args.size()), ret));
-            return (ret != null) ? ret : "0";
+            emit(new TacInstr(TacOp.CALL, new Label(fname), Operand.of(args.size()), ret));
+            return (ret != null) ? ret : Operand.of(0);
         }
 
         // lvalue incluye arreglos
@@ -536,41 +673,41 @@ public final class TacGen extends MiniCBaseVisitor<String> {
             VarSymbol v = resolveVar(ctx, name);
             if (v != null && isGlobal(v)) {
                 // leer escalar global => LOAD base, 0
-                String t = newTemp();
-                emit(new TacInstr(TacOp.LOAD, name, "0", t));
+                Temp t = newTemp();
+                emit(new TacInstr(TacOp.LOAD, new Label(name), Operand.of(0), t));
                 return t;
             }
-            return name;
+            return var(name);
         }
 
         // (expr)
         if (ctx.expr() != null) return visit(ctx.expr());
 
-        return "0";
+        return Operand.of(0);
     }
 
     @Override
-    public String visitLvalue(MiniCParser.LvalueContext ctx) {
+    public Operand visitLvalue(MiniCParser.LvalueContext ctx) {
         String base = ctx.ID().getText();
         VarSymbol v = resolveVar(ctx, base);
         List<MiniCParser.ExprContext> idxNodes = ctx.expr();
         if (idxNodes == null || idxNodes.isEmpty()) {
             // variable
             if (v != null && isGlobal(v)) {
-                String t = newTemp();
-                emit(new TacInstr(TacOp.LOAD, base, "0", t));
+                Temp t = newTemp();
+                emit(new TacInstr(TacOp.LOAD, new Label(base), Operand.of(0), t));
                 return t;
             }
-            return base;
+            return var(base);
         }
 
         // arreglo global
-        List<String> idxVals = new ArrayList<>();
+        List<Operand> idxVals = new ArrayList<>();
         for (MiniCParser.ExprContext e : idxNodes) idxVals.add(visit(e));
         int[] dims = (v != null) ? v.dims : new int[]{idxVals.size()};
-        String offBytes = offsetBytesForArray(dims, idxVals);
-        String t = newTemp();
-        emit(new TacInstr(TacOp.LOAD, base, offBytes, t));
+        Operand offBytes = offsetBytesForArray(dims, idxVals);
+        Temp t = newTemp();
+        emit(new TacInstr(TacOp.LOAD, new Label(base), offBytes, t));
         return t;
     }
 }
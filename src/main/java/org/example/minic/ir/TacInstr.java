@@ -1,10 +1,17 @@
 package org.example.minic.ir;
 
+import org.example.minic.ir.Operand.Label;
+import org.example.minic.ir.Operand.Name;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
 public class TacInstr {
     public final TacOp op;
-    public final String a, b, r; // arg1, arg2, result
+    public final Operand a, b, r; // arg1, arg2, result
 
-    public TacInstr(TacOp op, String a, String b, String r) {
+    public TacInstr(TacOp op, Operand a, Operand b, Operand r) {
         this.op = op; this.a = a; this.b = b; this.r = r;
     }
 
@@ -37,9 +44,107 @@ public class TacInstr {
 
             // control de flujo
             case IFZ   -> String.format("ifz %s goto %s", a, b); // a=cond, b=label
+            case IFNZ  -> String.format("ifnz %s goto %s", a, b); // a=cond, b=label
             case GOTO  -> String.format("goto %s", a);           // a=label
             case LABEL -> String.format("%s:", a);               // a=label
         };
     }
 
+    // ---------------- Constructores usuales ----------------
+
+    public static TacInstr label(String name) {
+        return new TacInstr(TacOp.LABEL, new Label(name), null, null);
+    }
+
+    public static TacInstr jump(String target) {
+        return new TacInstr(TacOp.GOTO, new Label(target), null, null);
+    }
+
+    public static TacInstr mov(Operand src, Name dst) {
+        return new TacInstr(TacOp.MOV, src, null, dst);
+    }
+
+    // ---------------- Operandos ----------------
+
+    /** Label de un LABEL/GOTO/IFZ/IFNZ, o null. */
+    public String labelName() {
+        return switch (op) {
+            case LABEL, GOTO -> ((Label) a).name();
+            case IFZ, IFNZ -> ((Label) b).name();
+            default -> null;
+        };
+    }
+
+    /** Nombre de la función llamada (solo CALL). */
+    public String callee() {
+        return ((Label) a).name();
+    }
+
+    /** Cantidad de argumentos de un CALL. */
+    public int argCount() {
+        return (b == null) ? 0 : Operand.constValue(b);
+    }
+
+    /** Nombre que define la instrucción, o null. */
+    public Name def() {
+        return switch (op) {
+            case LABEL, GOTO, IFZ, IFNZ, PARAM, RET, STORE -> null;
+            default -> (r instanceof Name n) ? n : null;
+        };
+    }
+
+    /** Nombres que lee la instrucción (sin literales ni labels). */
+    public List<Name> uses() {
+        List<Name> out = new ArrayList<>(2);
+        switch (op) {
+            case LABEL, GOTO, CALL -> { }
+            case MOV, NOT, RET, IFZ, IFNZ, PARAM -> addName(out, a);
+            case LOAD -> addName(out, b);
+            case STORE -> {
+                addName(out, a);
+                addName(out, r);
+            }
+            default -> {
+                addName(out, a);
+                addName(out, b);
+            }
+        }
+        return out;
+    }
+
+    private static void addName(List<Name> out, Operand s) {
+        if (s instanceof Name n) out.add(n);
+    }
+
+    /** Copia con cada nombre leído reemplazado por f (this si nada cambia). */
+    public TacInstr mapUses(UnaryOperator<Operand> f) {
+        Operand na = a, nb = b, nr = r;
+        switch (op) {
+            case LABEL, GOTO, CALL -> { }
+            case MOV, NOT, RET, IFZ, IFNZ, PARAM -> na = mapName(a, f);
+            case LOAD -> nb = mapName(b, f);
+            case STORE -> {
+                na = mapName(a, f);
+                nr = mapName(r, f);
+            }
+            default -> {
+                na = mapName(a, f);
+                nb = mapName(b, f);
+            }
+        }
+        if (na == a && nb == b && nr == r) return this;
+        return new TacInstr(op, na, nb, nr);
+    }
+
+    private static Operand mapName(Operand s, UnaryOperator<Operand> f) {
+        if (!(s instanceof Name)) return s;
+        Operand m = f.apply(s);
+        return (m == null || m.equals(s)) ? s : m;
+    }
+
+    /** Copia con otro destino (solo para instrucciones con def()). */
+    public TacInstr withDef(Name d) {
+        return new TacInstr(op, a, b, d);
+    }
+
 }
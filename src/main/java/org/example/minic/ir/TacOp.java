@@ -20,5 +20,5 @@ public enum TacOp {
     LOAD, STORE,
 
     // control de flujo
-    IFZ, GOTO, LABEL   // <-- NUEVO
+    IFZ, IFNZ, GOTO, LABEL
 }
@@ -1,10 +1,14 @@
 package org.example.minic.ir;
 
-public class TacOptimizer {
+import java.util.ListIterator;
 
-    private static boolean isIntLit(String s) {
-        return s != null && s.matches("-?\\d+");
-    }
+/**
+ * Helpers de folding que usan las pasadas (eval de binarios con literales y
+ * la pasada "fold"); el pipeline lo arma PassManager.
+ */
+public final class TacOptimizer {
+
+    private TacOptimizer() { }
 
     // Helpers por nombre para tolerar variantes en el enum
     private static boolean isAdd(TacOp op){ return op == TacOp.ADD || "ADD".equals(op.name()); }
@@ -40,7 +44,7 @@ public class TacOptimizer {
                 ||isAnd(op)||isOr(op);
     }
 
-    private static Integer eval(TacOp op, int a, int b) {
+    static Integer eval(TacOp op, int a, int b) {
         if (isAdd(op)) return a + b;
         if (isSub(op)) return a - b;
         if (isMul(op)) return a * b;
@@ -60,38 +64,33 @@ public class TacOptimizer {
         return null;
     }
 
-    public TacProgram optimize(TacProgram in) {
-        TacProgram out = new TacProgram();
-
-        // conservar la sección .data (arreglos globales)
-        out.globals.addAll(in.globals);
-
-        for (TacFunction f : in.functions) {
-            TacFunction g = new TacFunction(f.name);
-            g.params.addAll(f.params);
-
-            for (TacInstr i : f.code) {
+    /**
+     * Limpieza local, bloque por bloque: quita mov x, x y pliega binarios
+     * con dos literales. Devuelve cuántas instrucciones cambió.
+     */
+    static int foldConstants(ControlFlowGraph cfg) {
+        int n = 0;
+        for (BasicBlock b : cfg.blocks) {
+            for (ListIterator<TacInstr> it = b.code.listIterator(); it.hasNext(); ) {
+                TacInstr i = it.next();
                 // Quitar mov redundante: mov x, x
                 if (i.op == TacOp.MOV && i.r != null && i.a != null && i.r.equals(i.a)) {
+                    it.remove();
+                    n++;
                     continue;
                 }
 
                 // Folding de binarios con dos literales
-                if (i.r != null && isBinFoldable(i.op) && isIntLit(i.a) && isIntLit(i.b)) {
-                    Integer v = eval(i.op, Integer.parseInt(i.a), Integer.parseInt(i.b));
+                if (i.def() != null && isBinFoldable(i.op)
+                        && i.a instanceof Operand.IntConst x && i.b instanceof Operand.IntConst y) {
+                    Integer v = eval(i.op, x.value(), y.value());
                     if (v != null) {
-                        // Constructor: (TacOp op, String a, String b, String r)  => a=src, r=dst
-                        g.emit(new TacInstr(TacOp.MOV, String.valueOf(v), null, i.r));  // t0 = 7
-                        continue;
+                        it.set(TacInstr.mov(Operand.of(v), i.def()));  // t0 = 7
+                        n++;
                     }
                 }
-
-                // Default: copiar instrucción
-                g.emit(i);
             }
-
-            out.functions.add(g);
         }
-        return out;
+        return n;
     }
 }
@@ -6,6 +6,16 @@ public class TacProgram {
     /** globals en .data (por ahora: arreglos globales) */
     public final List<TacGlobal> globals = new ArrayList<>();
     public final List<TacFunction> functions = new ArrayList<>();
+    /** pool de literales string (con comillas); StrConst.id indexa aquí */
+    public final List<String> strings = new ArrayList<>();
+    /** nombres de todas las funciones del programa, aunque no estén (todavía) en functions */
+    public final Set<String> declared = new LinkedHashSet<>();
+    /**
+     * Funciones generadas que esperan al optimizador empaquetadas (ver
+     * PackedTac), en orden de fuente; se usa en lugar de functions, no junto.
+     * PassManager.run las desempaqueta de a una y vacía la lista.
+     */
+    public final List<PackedTac> packed = new ArrayList<>();
 
     public TacFunction newFunction(String name) {
         TacFunction f = new TacFunction(name);
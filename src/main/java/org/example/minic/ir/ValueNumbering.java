@@ -0,0 +1,135 @@
+package org.example.minic.ir;
+
+import org.example.minic.ir.Operand.Name;
+
+import java.util.*;
+
+/**
+ * Numeración de valores sobre forma SSA (hash por árbol de dominadores).
+ * - Una expresión pura ya calculada en un bloque dominador se reutiliza:
+ *   la instrucción repetida se borra y sus usos leen el primer nombre.
+ * - ADD, MUL, EQ, NEQ, AND y OR se normalizan ordenando los operandos.
+ * - LOAD solo se numera dentro del bloque y con una "época" de memoria
+ *   que cada STORE o CALL invalida.
+ * - Phis del mismo bloque con los mismos args se unifican.
+ * Cubre sobre todo la aritmética de direcciones (i-1)*dim + (j-1), *4 que
+ * TacGen repite en cada acceso a arreglo.
+ */
+public final class ValueNumbering {
+
+    /**
+     * Expresión pura: op y operandos tipados (b es null en NOT). Los
+     * conmutativos vienen con los operandos en el orden de Operand.compare.
+     */
+    public record Key(TacOp op, Operand a, Operand b) {
+        @Override public String toString() {
+            return (b == null) ? op + " " + a : op + " " + a + " " + b;
+        }
+    }
+
+    /** Phi del bloque block con estos args (pred -> leader del valor). */
+    private record PhiKey(BasicBlock block, Map<BasicBlock, Operand> args) { }
+
+    private ValueNumbering() { }
+
+    /** Devuelve cuántas instrucciones (o phis) redundantes eliminó. */
+    public static int run(ControlFlowGraph cfg) {
+        DominatorTree dt = new DominatorTree(cfg);
+        Map<Operand, Operand> leader = new HashMap<>();
+        Map<Object, Name> table = new HashMap<>();
+        Deque<BasicBlock> scopeBlocks = new ArrayDeque<>();
+        Deque<List<Object>> scopeKeys = new ArrayDeque<>();
+        int removed = 0;
+
+        for (BasicBlock b : dt.preorder()) {
+            // cerrar los scopes de bloques que no dominan a b
+            while (!scopeBlocks.isEmpty() && !dt.dominates(scopeBlocks.peek(), b)) {
+                scopeBlocks.pop();
+                for (Object k : scopeKeys.pop()) table.remove(k);
+            }
+            List<Object> added = new ArrayList<>();
+            scopeBlocks.push(b);
+            scopeKeys.push(added);
+
+            for (Iterator<PhiNode> it = b.phis.iterator(); it.hasNext(); ) {
+                PhiNode p = it.next();
+                Map<BasicBlock, Operand> args = new HashMap<>();
+                p.args.forEach((pred, v) -> args.put(pred, find(leader, v)));
+                PhiKey key = new PhiKey(b, args);
+                Name prev = table.get(key);
+                if (prev != null) {
+                    leader.put(p.dest, prev);
+                    it.remove();
+                    removed++;
+                } else {
+                    table.put(key, p.dest);
+                    added.add(key);
+                }
+            }
+
+            // LOADs numerados desde el último STORE/CALL del bloque
+            Map<Object, Name> loads = new HashMap<>();
+            List<TacInstr> out = new ArrayList<>(b.code.size());
+            for (TacInstr i0 : b.code) {
+                TacInstr i = i0.mapUses(u -> find(leader, u));
+                if (i.op == TacOp.STORE || i.op == TacOp.CALL) loads.clear();
+                Key key = keyOf(i);
+                if (key != null) {
+                    boolean isLoad = i.op == TacOp.LOAD;
+                    Map<Object, Name> t = isLoad ? loads : table;
+                    Name prev = t.get(key);
+                    if (prev != null) {
+                        leader.put(i.def(), prev);
+                        removed++;
+                        continue;
+                    }
+                    t.put(key, i.def());
+                    if (!isLoad) added.add(key);
+                }
+                out.add(i);
+            }
+            b.code.clear();
+            b.code.addAll(out);
+        }
+
+        if (!leader.isEmpty()) {
+            for (BasicBlock b : cfg.blocks) {
+                for (PhiNode p : b.phis) p.args.replaceAll((pred, a) -> find(leader, a));
+            }
+        }
+        return removed;
+    }
+
+    static boolean isCommutative(TacOp op) {
+        return switch (op) {
+            case ADD, MUL, EQ, NEQ, AND, OR -> true;
+            default -> false;
+        };
+    }
+
+    /** Clave hash de una expresión pura con def, o null si no se numera. */
+    static Key keyOf(TacInstr i) {
+        if (i.def() == null) return null;
+        switch (i.op) {
+            case MOV, CALL, PARAM, STORE:
+                return null;
+            case NOT:
+                return new Key(i.op, i.a, null);
+            default: {
+                Operand a = i.a, b = i.b;
+                if (isCommutative(i.op) && a != null && b != null && Operand.compare(a, b) > 0) {
+                    Operand t = a;
+                    a = b;
+                    b = t;
+                }
+                return new Key(i.op, a, b);
+            }
+        }
+    }
+
+    private static Operand find(Map<Operand, Operand> leader, Operand s) {
+        Operand cur = s;
+        for (Operand next; cur != null && (next = leader.get(cur)) != null; ) cur = next;
+        return cur;
+    }
+}
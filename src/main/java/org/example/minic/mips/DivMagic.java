@@ -0,0 +1,48 @@
+package org.example.minic.mips;
+
+/**
+ * Número mágico para división con signo por una constante d, |d| &gt;= 2
+ * (Granlund-Montgomery; Hacker's Delight, 10-1):
+ * q = hi32(M * x); q += x si d &gt; 0 y M &lt; 0; q -= x si d &lt; 0 y M &gt; 0;
+ * q = q sra shift; q += (q srl 31)  (truncar hacia 0).
+ */
+final class DivMagic {
+
+    final int multiplier;
+    final int shift;
+
+    private DivMagic(int multiplier, int shift) {
+        this.multiplier = multiplier;
+        this.shift = shift;
+    }
+
+    static DivMagic of(int d) {
+        if (d >= -1 && d <= 1) throw new IllegalArgumentException("divisor sin número mágico: " + d);
+        final int two31 = 0x80000000;
+        int ad = Math.abs(d);                       // unsigned: |MIN_VALUE| = 2^31
+        int t = two31 + (d >>> 31);
+        int anc = t - 1 - Integer.remainderUnsigned(t, ad);   // |nc|
+        int p = 31;
+        int q1 = Integer.divideUnsigned(two31, anc), r1 = two31 - q1 * anc;
+        int q2 = Integer.divideUnsigned(two31, ad), r2 = two31 - q2 * ad;
+        int delta;
+        do {
+            p++;
+            q1 <<= 1;
+            r1 <<= 1;
+            if (Integer.compareUnsigned(r1, anc) >= 0) {
+                q1++;
+                r1 -= anc;
+            }
+            q2 <<= 1;
+            r2 <<= 1;
+            if (Integer.compareUnsigned(r2, ad) >= 0) {
+                q2++;
+                r2 -= ad;
+            }
+            delta = ad - r2;
+        } while (Integer.compareUnsigned(q1, delta) < 0 || (q1 == delta && r1 == 0));
+        int m = q2 + 1;
+        return new DivMagic((d < 0) ? -m : m, p - 32);
+    }
+}
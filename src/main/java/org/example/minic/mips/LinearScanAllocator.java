@@ -0,0 +1,107 @@
+package org.example.minic.mips;
+
+import org.example.minic.ir.Operand.Name;
+import org.example.minic.ir.TacFunction;
+
+import java.util.*;
+
+/**
+ * Asignación de registros linear-scan (Poletto &amp; Sarkar) sobre el TAC de una función.
+ * - Los intervalos salen de {@link LiveIntervals} (liveness), así que respetan los ciclos.
+ * - Un intervalo que cruza un CALL real (jal) solo puede vivir en $s0-$s7.
+ * - Bajo presión se hace spill del intervalo que termina más tarde.
+ * $t0-$t2 no se asignan: MipsGen los usa como scratch.
+ */
+public class LinearScanAllocator {
+
+    static final String[] CALLER_SAVED = {"$t3", "$t4", "$t5", "$t6", "$t7", "$t8", "$t9"};
+    static final String[] CALLEE_SAVED = {"$s0", "$s1", "$s2", "$s3", "$s4", "$s5", "$s6", "$s7"};
+
+    private final Map<Name, String> regOf = new HashMap<>();
+    private final Set<Name> spilled = new LinkedHashSet<>();
+    private final SortedSet<String> usedCalleeSaved = new TreeSet<>();
+    private LiveIntervals intervals;
+
+    public LinearScanAllocator(TacFunction f) {
+        allocate(f);
+    }
+
+    /** Registro asignado a name, o null si vive en el stack. */
+    public String regOf(Name name) { return regOf.get(name); }
+
+    /** Nombres que necesitan slot en el frame (en orden de aparición). */
+    public Set<Name> spilled() { return spilled; }
+
+    /** Registros $s usados: el prólogo/epílogo deben preservarlos. */
+    public SortedSet<String> usedCalleeSaved() { return usedCalleeSaved; }
+
+    /** Intervalos con los que se asignó (para repartir los slots de los spills). */
+    LiveIntervals intervals() { return intervals; }
+
+    private void allocate(TacFunction f) {
+        intervals = LiveIntervals.of(f);
+        linearScan(intervals.all());
+    }
+
+    private void linearScan(LiveIntervals.Interval[] all) {
+        List<LiveIntervals.Interval> order = new ArrayList<>(Arrays.asList(all));
+        order.sort(Comparator.comparingInt((LiveIntervals.Interval x) -> x.start).thenComparingInt(x -> x.end));
+
+        Deque<String> freeT = new ArrayDeque<>(Arrays.asList(CALLER_SAVED));
+        Deque<String> freeS = new ArrayDeque<>(Arrays.asList(CALLEE_SAVED));
+        List<LiveIntervals.Interval> active = new ArrayList<>();
+
+        for (LiveIntervals.Interval cur : order) {
+            // Expirar intervalos que ya terminaron (el último uso puede compartir
+            // registro con el def de la misma instrucción)
+            for (Iterator<LiveIntervals.Interval> it = active.iterator(); it.hasNext(); ) {
+                LiveIntervals.Interval a = it.next();
+                if (a.end <= cur.start) {
+                    it.remove();
+                    release(a.reg, freeT, freeS);
+                }
+            }
+
+            String reg = null;
+            if (!cur.crossesCall && !freeT.isEmpty()) reg = freeT.pollFirst();
+            else if (!freeS.isEmpty()) reg = freeS.pollFirst();
+
+            if (reg == null) {
+                // Spill: el activo compatible que termina más tarde
+                LiveIntervals.Interval victim = null;
+                for (LiveIntervals.Interval a : active) {
+                    if (cur.crossesCall && !a.reg.startsWith("$s")) continue;
+                    if (victim == null || a.end > victim.end) victim = a;
+                }
+                if (victim != null && victim.end > cur.end) {
+                    reg = victim.reg;
+                    victim.reg = null;
+                    active.remove(victim);
+                    spilled.add(victim.name);
+                } else {
+                    spilled.add(cur.name);
+                    continue;
+                }
+            }
+            cur.reg = reg;
+            active.add(cur);
+        }
+
+        for (LiveIntervals.Interval it : all) {
+            if (it.reg == null) continue;
+            regOf.put(it.name, it.reg);
+            if (it.reg.startsWith("$s")) usedCalleeSaved.add(it.reg);
+        }
+        // spilled en orden de aparición (slots deterministas)
+        Set<Name> ordered = new LinkedHashSet<>();
+        for (LiveIntervals.Interval it : all) if (spilled.contains(it.name)) ordered.add(it.name);
+        spilled.clear();
+        spilled.addAll(ordered);
+    }
+
+    private static void release(String reg, Deque<String> freeT, Deque<String> freeS) {
+        if (reg == null) return;
+        if (reg.startsWith("$s")) freeS.addFirst(reg);
+        else freeT.addFirst(reg);
+    }
+}
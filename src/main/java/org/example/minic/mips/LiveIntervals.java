@@ -0,0 +1,177 @@
+package org.example.minic.mips;
+
+import org.example.minic.ir.BasicBlock;
+import org.example.minic.ir.Bits;
+import org.example.minic.ir.ControlFlowGraph;
+import org.example.minic.ir.Liveness;
+import org.example.minic.ir.NameIndex;
+import org.example.minic.ir.Operand;
+import org.example.minic.ir.Operand.Name;
+import org.example.minic.ir.TacFunction;
+import org.example.minic.ir.TacInstr;
+import org.example.minic.ir.TacOp;
+
+import java.util.*;
+
+/**
+ * Intervalos de vida [primer def/live-in, último uso/live-out] de cada nombre
+ * de una función, medidos en posiciones de f.code.
+ * - Salen de liveness ({@link Liveness} por bloque, bajada a cada
+ *   instrucción), así que respetan los ciclos.
+ * - Los params empiezan en -1 (se guardan en el prólogo).
+ * Los usan el linear scan y el reparto de slots del frame.
+ */
+final class LiveIntervals {
+
+    static final class Interval {
+        final Name name;
+        final int order;        // orden de aparición (params primero)
+        int start = Integer.MAX_VALUE;
+        int end = -1;
+        boolean crossesCall;
+        String reg;
+
+        Interval(Name name, int order) {
+            this.name = name;
+            this.order = order;
+        }
+    }
+
+    private final NameIndex idx;
+    private final Interval[] iv;
+
+    static LiveIntervals of(TacFunction f) {
+        return new LiveIntervals(f);
+    }
+
+    /** Todos los intervalos, en orden de aparición. */
+    Interval[] all() {
+        return iv;
+    }
+
+    Interval of(Name n) {
+        int k = idx.indexOf(n);
+        return (k < 0) ? null : iv[k];
+    }
+
+    // -------- Uses / defs por instrucción --------
+
+    /**
+     * Usos de cada instrucción. Los PARAM no leen nada: MipsGen carga los
+     * argumentos en el CALL, así que ahí se cuentan como usos.
+     */
+    static List<List<Name>> usesOf(TacFunction f) {
+        List<List<Name>> uses = new ArrayList<>(f.code.size());
+        Deque<Operand> params = new ArrayDeque<>();
+        for (TacInstr i : f.code) {
+            List<Name> u = new ArrayList<>(2);
+            switch (i.op) {
+                case LABEL, GOTO -> { }
+                case PARAM -> params.addLast(i.a);
+                case CALL -> {
+                    int n = i.argCount();
+                    List<Operand> args = new ArrayList<>();
+                    for (int k = 0; k < n && !params.isEmpty(); k++) args.add(0, params.removeLast());
+                    for (Operand a : args) addName(u, a);
+                }
+                case IFZ, IFNZ, RET, MOV, NOT -> addName(u, i.a);
+                case LOAD -> addName(u, i.b);
+                case STORE -> {
+                    addName(u, i.a);
+                    addName(u, i.r);
+                }
+                default -> {
+                    addName(u, i.a);
+                    addName(u, i.b);
+                }
+            }
+            uses.add(u);
+        }
+        return uses;
+    }
+
+    private static void addName(List<Name> out, Operand s) {
+        if (s instanceof Name n) out.add(n);
+    }
+
+    static boolean isRealCall(TacInstr i) {
+        return i.op == TacOp.CALL && !MipsGen.isBuiltin(i.callee());
+    }
+
+    private LiveIntervals(TacFunction f) {
+        int n = f.code.size();
+        List<List<Name>> uses = usesOf(f);
+
+        // Indexar nombres (params primero)
+        idx = new NameIndex();
+        for (Name p : f.params) idx.add(p);
+        Map<TacInstr, List<Name>> usesByInstr = new IdentityHashMap<>();
+        for (int k = 0; k < n; k++) {
+            TacInstr i = f.code.get(k);
+            for (Name u : uses.get(k)) idx.add(u);
+            if (i.def() != null) idx.add(i.def());
+            // la misma instrucción repetida: unión de usos (conservador)
+            usesByInstr.merge(i, uses.get(k), (x, y) -> {
+                List<Name> m = new ArrayList<>(x);
+                m.addAll(y);
+                return m;
+            });
+        }
+
+        // liveness por bloque; después se baja a instrucciones dentro de cada bloque
+        ControlFlowGraph cfg = ControlFlowGraph.build(f);
+        Liveness lv = new Liveness(cfg, idx, usesByInstr::get);
+
+        // Intervalos [primer def/live-in, último uso/live-out]
+        iv = new Interval[idx.size()];
+        for (int v = 0; v < iv.length; v++) iv[v] = new Interval(idx.get(v), v);
+        // los params se definen en la entrada, antes de la instrucción 0
+        for (Name p : f.params) iv[idx.indexOf(p)].start = -1;
+
+        // los bloques, en orden, repiten f.code: [LABEL] + code
+        int pos = 0;
+        for (BasicBlock b : cfg.blocks) {
+            int first = pos;
+            int codeStart = first + (b.label != null ? 1 : 0);
+            pos = codeStart + b.code.size();
+            if (!b.code.isEmpty() && f.code.get(codeStart) != b.code.get(0)) {
+                throw new IllegalStateException("CFG desalineado con el TAC en " + f.name);
+            }
+            Bits live = lv.liveOut(b).copy();
+            for (int k = pos - 1; k >= first; k--) {
+                TacInstr i = f.code.get(k);
+                extendAll(iv, live, k);                 // live-out de k
+                Name d = i.def();
+                if (d != null) {
+                    live.clear(idx.indexOf(d));
+                    extend(iv[idx.indexOf(d)], k);
+                }
+                for (Name u : uses.get(k)) {
+                    live.set(idx.indexOf(u));
+                    extend(iv[idx.indexOf(u)], k);
+                }
+                extendAll(iv, live, k);                 // live-in de k
+            }
+        }
+
+        for (Interval it : iv) {
+            if (it.start == Integer.MAX_VALUE) it.start = 0;
+            if (it.end < it.start) it.end = it.start;
+        }
+        for (int k = 0; k < n; k++) {
+            if (!isRealCall(f.code.get(k))) continue;
+            for (Interval it : iv) {
+                if (it.start < k && it.end > k) it.crossesCall = true;
+            }
+        }
+    }
+
+    private static void extendAll(Interval[] iv, Bits live, int pos) {
+        for (int v = live.nextSetBit(0); v >= 0; v = live.nextSetBit(v + 1)) extend(iv[v], pos);
+    }
+
+    private static void extend(Interval it, int pos) {
+        if (pos < it.start) it.start = pos;
+        if (pos > it.end) it.end = pos;
+    }
+}
@@ -1,19 +1,68 @@
 package org.example.minic.mips;
 
-import java.util.*;
+import org.example.minic.mips.MipsOperand.Str;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.StringJoiner;
+import java.util.function.IntFunction;
+
+/**
+ * Printer del modelo MIPS: única forma de pasar {@link MipsFunction} a texto.
+ * - Mnemónico alineado a 4 columnas; operandos separados por ", ".
+ * - Línea vacía después de cada jr y al final de cada función.
+ * Escribe directo en out (el buffering queda del lado de quien lo crea).
+ */
 public class MipsEmitter {
-    private final StringBuilder sb = new StringBuilder();
+    private final Writer out;
+    // StrConst.id -> label del .data
+    private final IntFunction<String> strLabel;
+
+    public MipsEmitter(Writer out) {
+        this(out, id -> "str#" + id);
+    }
+
+    MipsEmitter(Writer out, IntFunction<String> strLabel) {
+        this.out = out;
+        this.strLabel = strLabel;
+    }
+
+    public void emit(String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+    }
+
+    public void label(String lab) throws IOException {
+        emit(lab + ":");
+    }
+
+    /** Líneas ya armadas (terminadas en \n), tal cual. */
+    void raw(CharSequence lines) throws IOException {
+        out.append(lines);
+    }
 
-    public void emit(String line) {
-        sb.append(line).append("\n");
+    void function(MipsFunction f) throws IOException {
+        if (f.global) emit(".globl " + f.name);
+        label(f.name);
+        boolean blank = false;
+        for (MipsInstr i : f.body) {
+            emit(format(i, strLabel));
+            blank = i.op == MipsOp.JR;
+            if (blank) out.write('\n');
+        }
+        if (!blank) out.write('\n');
     }
 
-    public void label(String lab) {
-        sb.append(lab).append(":\n");
+    static String format(MipsInstr i) {
+        return format(i, id -> "str#" + id);
     }
 
-    public String build() {
-        return sb.toString();
+    static String format(MipsInstr i, IntFunction<String> strLabel) {
+        if (i.isLabel()) return i.labelName() + ":";
+        if (!i.isInstr()) return "# " + i.commentText();
+        if (i.args.isEmpty()) return i.op.mnemonic();
+        StringJoiner args = new StringJoiner(", ");
+        for (MipsOperand a : i.args) args.add(a instanceof Str s ? strLabel.apply(s.id()) : a.toString());
+        return String.format("%-4s %s", i.op.mnemonic(), args);
     }
 }
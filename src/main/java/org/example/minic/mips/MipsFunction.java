@@ -0,0 +1,30 @@
+package org.example.minic.mips;
+
+import org.example.minic.ir.Operand.StrConst;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Código MIPS de una función: label de entrada más el cuerpo (prólogo
+ * incluido), como lista de {@link MipsInstr}.
+ */
+final class MipsFunction {
+
+    final String name;
+    final boolean global;               // se exporta con .globl
+    final List<MipsInstr> body = new ArrayList<>();
+    // strings que usa el cuerpo (id -> literal), en orden de primer uso
+    final Map<Integer, StrConst> strings = new LinkedHashMap<>();
+
+    MipsFunction(String name, boolean global) {
+        this.name = name;
+        this.global = global;
+    }
+
+    void add(MipsInstr i) {
+        body.add(i);
+    }
+}
@@ -1,98 +1,259 @@
 package org.example.minic.mips;
 
 import org.example.minic.ir.*;
-
+import org.example.minic.ir.Operand.Name;
+import org.example.minic.ir.Operand.StrConst;
+import org.example.minic.mips.MipsOperand.Imm;
+import org.example.minic.mips.MipsOperand.Mem;
+import org.example.minic.mips.MipsOperand.Reg;
+import org.example.minic.mips.MipsOperand.Str;
+import org.example.minic.mips.MipsOperand.Sym;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static org.example.minic.mips.MipsOp.*;
 
 /**
- * TAC -> MIPS32 (PCSpim).
+ * TAC -> MIPS32 (PCSpim). Cada función se arma como {@link MipsFunction}
+ * (el peephole trabaja sobre ese modelo) y {@link MipsEmitter} la pasa a texto.
  */
 public class MipsGen {
 
+    // strings del .data (se escribe al final, después de todo el .text)
     private final StringBuilder data = new StringBuilder();
-    private final StringBuilder text = new StringBuilder();
-
-    // stack slots: name -> offset (negativo) relativo a $fp
-    private final Map<String, Integer> slot = new HashMap<>();
-    private final List<String> paramQueue = new ArrayList<>();
+    // función que se está generando
+    private MipsFunction fn;
+    // salida del programa en curso (entre beginProgram y endProgram)
+    private MipsEmitter text;
+
+    // stack slots: name -> offset (negativo) relativo a $fp (ver slotAddr)
+    private final Map<Name, Integer> slot = new HashMap<>();
+    // slots donde el prólogo guarda los $s usados (comparten nextSlot)
+    private final Map<Reg, Integer> savedSlot = new HashMap<>();
+    private final List<Operand> paramQueue = new ArrayList<>();
+    // -O: comparaciones que se emiten junto con el IFZ/IFNZ siguiente
+    private final Set<TacInstr> fusedCmp = Collections.newSetFromMap(new IdentityHashMap<>());
     private int nextSlot = -4;
 
     // frame size actual (por funcion)
     private int frameBytes = 0;
+    // hoja con -O: sin $ra/$fp en el frame, slots direccionados desde $sp
+    private boolean leaf;
 
-    // strings: dedup por literal exacto
-    private final Map<String, String> stringPool = new HashMap<>();
+    // strings: StrConst.id -> label (numerados en orden de fuente, al escribir)
+    private final Map<Integer, String> stringPool = new HashMap<>();
     private int strCount = 0;
 
     // label null defense
     private static final String NULL_LABEL = "__L_null";
     private boolean nullLabelEmitted = false;
 
+    // builtins resueltos con syscall (no hacen jal, no pisan $t/$s)
+    private static final Set<String> BUILTINS = Set.of(
+            "printInt", "print_int", "printChar", "print_char",
+            "printString", "print_str", "println", "nl");
+
+    // -O: registros vía linear scan; sin -O todo vive en slots
+    private final boolean allocateRegisters;
+    private LinearScanAllocator alloc;
+    // nombres con vidas disjuntas comparten slot (frames más chicos)
+    private final boolean shareSlots;
+    // peephole sobre el cuerpo de cada función (null: apagado; compartido con los workers de -j)
+    private final Peephole peephole;
+
+    // estadísticas lw/sw: modelo de slots vs emitido
+    private final StringBuilder report = new StringBuilder();
+    private int slotLoads, slotStores, emittedLoads, emittedStores;
+
+    public MipsGen() {
+        this(false);
+    }
+
+    public MipsGen(boolean allocateRegisters) {
+        this(allocateRegisters, allocateRegisters);
+    }
+
+    public MipsGen(boolean allocateRegisters, boolean shareSlots) {
+        this(allocateRegisters, shareSlots, allocateRegisters);
+    }
+
+    public MipsGen(boolean allocateRegisters, boolean shareSlots, boolean peephole) {
+        this.allocateRegisters = allocateRegisters;
+        this.shareSlots = shareSlots;
+        this.peephole = peephole ? new Peephole() : null;
+    }
+
+    // worker de -j: mismas opciones, estado por función propio
+    private MipsGen(MipsGen parent) {
+        this.allocateRegisters = parent.allocateRegisters;
+        this.shareSlots = parent.shareSlots;
+        this.peephole = parent.peephole;
+    }
+
+    /** Función generada por un worker, con su línea del reporte. */
+    private record Generated(MipsFunction fn, String report) { }
+
+    /** Resumen por función de loads/stores eliminados y del tamaño del frame. */
+    public String getReport() {
+        return report.toString();
+    }
+
     // -------- API principal --------
+    /** Programa completo como String (para la GUI); ver {@link #emitProgram(TacProgram, Writer)}. */
     public String emitProgram(TacProgram p) {
+        StringWriter out = new StringWriter();
+        try {
+            emitProgram(p, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringWriter no falla
+        }
+        return out.toString();
+    }
+
+    /**
+     * Escribe el programa en out: cada función apenas se genera (no se
+     * guarda el .text entero) y al final el .data con globales y strings.
+     */
+    public void emitProgram(TacProgram p, Writer out) throws IOException {
+        beginProgram(out);
+        for (TacFunction f : p.functions) {
+            emitFunction(f);
+        }
+        endProgram(p.globals);
+    }
+
+    /**
+     * Como {@link #emitProgram(TacProgram, Writer)}, generando las funciones
+     * en pool (cada una con un worker propio). Se escriben en orden de fuente
+     * y los strings se numeran al escribir: la salida es la misma que en serie.
+     */
+    public void emitProgram(TacProgram p, Writer out, ForkJoinPool pool) throws IOException {
+        beginProgram(out);
+        List<ForkJoinTask<Generated>> tasks = new ArrayList<>();
+        for (TacFunction f : p.functions) {
+            tasks.add(pool.submit(() -> new MipsGen(this).generate(f)));
+        }
+        for (ForkJoinTask<Generated> t : tasks) {
+            Generated g = t.join();
+            report.append(g.report);
+            write(g.fn);
+        }
+        endProgram(p.globals);
+    }
+
+    /** Empieza un programa en out: .text y el stub __start. */
+    public void beginProgram(Writer out) throws IOException {
         data.setLength(0);
-        text.setLength(0);
         stringPool.clear();
         strCount = 0;
+        report.setLength(0);
+        if (peephole != null) peephole.reset();
+
+        text = new MipsEmitter(out, stringPool::get);
+        text.emit(".text");
+        MipsFunction start = new MipsFunction("__start", true);
+        start.add(MipsInstr.of(JAL, new Sym("main")));
+        start.add(MipsInstr.of(LI, Reg.V0, imm(10)));
+        start.add(MipsInstr.of(SYSCALL));
+        text.function(start);
+    }
 
-        data.append(".data\n");
+    /** Genera y escribe una función; no queda nada de ella al volver. */
+    public void emitFunction(TacFunction f) throws IOException {
+        write(genFunction(f));
+        fn = null;
+        alloc = null;
+    }
 
-        // Globales (arreglos/vars globales) -> .data
-        for (TacGlobal g : p.globals) {
-            data.append(".align 2\n");
-            data.append(g.name).append(":\n");
-            data.append("  .space ").append(g.bytes).append("\n");
-        }
+    private Generated generate(TacFunction f) {
+        MipsFunction m = genFunction(f);
+        return new Generated(m, report.toString());
+    }
 
-        text.append(".text\n");
-        text.append(".globl __start\n");
-        text.append("__start:\n");
-        text.append("  jal  main\n");
-        text.append("  li   $v0, 10\n");
-        text.append("  syscall\n\n");
+    // numera los strings nuevos de f (orden de fuente) y escribe f
+    private void write(MipsFunction f) throws IOException {
+        for (StrConst s : f.strings.values()) stringLabel(s);
+        text.function(f);
+    }
 
-        for (TacFunction f : p.functions) {
-            emitFunction(f);
+    /** Cierra el programa: .data con las globales y los strings usados. */
+    public void endProgram(List<TacGlobal> globals) throws IOException {
+        text.emit(".data");
+        // Globales (arreglos/vars globales) -> .data
+        for (TacGlobal g : globals) {
+            text.emit(".align 2");
+            text.label(g.name);
+            text.emit("  .space " + g.bytes);
         }
+        text.raw(data);
+        text = null;
 
-        return new StringBuilder().append(data).append(text).toString();
+        if (peephole != null) {
+            report.append("peephole:");
+            peephole.hits().forEach((rule, n) -> report.append(' ').append(rule).append(' ').append(n));
+            report.append('\n');
+        }
     }
 
     // -------- Funcion --------
-    private void emitFunction(TacFunction f) {
+    private MipsFunction genFunction(TacFunction f) {
+        fn = new MipsFunction(f.name, "main".equals(f.name));
         slot.clear();
+        savedSlot.clear();
         paramQueue.clear();
         nextSlot = -4;
         nullLabelEmitted = false;
+        slotLoads = slotStores = emittedLoads = emittedStores = 0;
+        fusedCmp.clear();
+        if (allocateRegisters) findFusedCompares(f);
 
         // Pre-scan: fija slots y calcula frameBytes antes del prologo
-        preAllocateSlots(f);
-        // 8 bytes para guardar $ra y $fp en el fondo del frame
-        int localsBytes = slot.size() * 4;
-        frameBytes = align16(localsBytes + 8);
-        if (frameBytes < 16) frameBytes = 16;
-
-        if ("main".equals(f.name)) {
-            text.append(".globl main\n");
+        int named;
+        if (allocateRegisters) {
+            alloc = new LinearScanAllocator(f);
+            named = alloc.spilled().size();
+            assignSlots(alloc.spilled(), shareSlots ? alloc.intervals() : null);
+            for (String s : alloc.usedCalleeSaved()) savedSlotOf(new Reg(s));
+        } else {
+            alloc = null;
+            Set<Name> names = slotNames(f);
+            named = names.size();
+            assignSlots(names, shareSlots ? LiveIntervals.of(f) : null);
         }
-        text.append(f.name).append(":\n");
+        int unsharedFrame = frameSize((named + savedSlot.size()) * 4);
+        int localsBytes = -(nextSlot + 4);
+        leaf = allocateRegisters && f.code.stream().noneMatch(LiveIntervals::isRealCall);
+        frameBytes = leaf ? align16(localsBytes) : frameSize(localsBytes);
 
         emitPrologue();
 
         // Guardar params ($a0..$a3) en slots
         for (int i = 0; i < f.params.size() && i < 4; i++) {
-            String pName = f.params.get(i);
-            switch (i) {
-                case 0 -> emitStore("$a0", pName);
-                case 1 -> emitStore("$a1", pName);
-                case 2 -> emitStore("$a2", pName);
-                case 3 -> emitStore("$a3", pName);
+            Name pName = f.params.get(i);
+            Reg aReg = Reg.arg(i);
+            Reg r = regOf(pName);
+            slotStores++;
+            if (r != null) {
+                emit(MOVE, r, aReg);
+            } else {
+                emitStore(aReg, pName);
             }
         }
 
         boolean sawRet = false;
 
-        for (TacInstr i : f.code) {
+        for (int k = 0; k < f.code.size(); k++) {
+            TacInstr i = f.code.get(k);
+            if (fusedCmp.contains(i)) {
+                emitCmpBranch(i, f.code.get(++k));
+                continue;
+            }
             switch (i.op) {
                 case MOV -> emitMov(i);
                 case ADD, SUB, MUL, DIV, MOD -> emitBinArith(i);
@@ -103,13 +264,11 @@ public class MipsGen {
                 case LOAD -> emitLoadMem(i);
                 case STORE -> emitStoreMem(i);
 
-                case LABEL -> emitLabel(i.a);
+                case LABEL -> emitLabel(i.labelName());
 
-                case IFZ -> {
-                    emitLoad(i.a, "$t0");
-                    text.append("beq $t0, $zero, ").append(canonLabel(i.b)).append("\n");
-                }
-                case GOTO -> text.append("j ").append(canonLabel(i.a)).append("\n");
+                case IFZ -> emit(BEQ, use(i.a, Reg.T0), Reg.ZERO, canonLabel(i.labelName()));
+                case IFNZ -> emit(BNE, use(i.a, Reg.T0), Reg.ZERO, canonLabel(i.labelName()));
+                case GOTO -> emit(J, canonLabel(i.labelName()));
 
                 case PARAM -> paramQueue.add(i.a);
                 case CALL -> emitCall(i);
@@ -124,198 +283,628 @@ public class MipsGen {
         if (!sawRet) {
             emitReturn0();
         }
+        if (peephole != null) peephole.run(fn.body);
+
+        if (alloc != null) {
+            report.append(f.name).append(": lw ").append(slotLoads).append(" -> ").append(emittedLoads)
+                    .append(" (-").append(slotLoads - emittedLoads).append("), sw ")
+                    .append(slotStores).append(" -> ").append(emittedStores)
+                    .append(" (-").append(slotStores - emittedStores).append("), ")
+                    .append(alloc.spilled().size()).append(" spilled");
+            if (shareSlots) report.append(", frame ").append(unsharedFrame).append(" -> ").append(frameBytes).append(" bytes");
+            report.append("\n");
+        } else if (shareSlots) {
+            report.append(f.name).append(": frame ").append(unsharedFrame).append(" -> ")
+                    .append(frameBytes).append(" bytes\n");
+        }
+        return fn;
     }
 
     // -------- Frame --------
     private void emitPrologue() {
-        // Reservar frame
-        text.append("addiu $sp, $sp, -").append(frameBytes).append("\n");
-        // Guardar $ra y $fp al fondo del frame
-        text.append("sw   $ra, 0($sp)\n");
-        text.append("sw   $fp, 4($sp)\n");
-        // $fp apunta al tope del frame (sp viejo): fp = sp + frameBytes
-        text.append("addiu $fp, $sp, ").append(frameBytes).append("\n");
+        if (leaf) {
+            // sin jal: $ra no se pisa y $fp no hace falta; sin slots, ni frame
+            if (frameBytes > 0) emit(ADDIU, Reg.SP, Reg.SP, imm(-frameBytes));
+        } else {
+            // Reservar frame
+            emit(ADDIU, Reg.SP, Reg.SP, imm(-frameBytes));
+            // Guardar $ra y $fp al fondo del frame
+            emit(SW, Reg.RA, new Mem(0, Reg.SP));
+            emit(SW, Reg.FP, new Mem(4, Reg.SP));
+            // $fp apunta al tope del frame (sp viejo): fp = sp + frameBytes
+            emit(ADDIU, Reg.FP, Reg.SP, imm(frameBytes));
+        }
+        if (alloc != null) {
+            for (String s : alloc.usedCalleeSaved()) {
+                Reg r = new Reg(s);
+                emit(SW, r, slotAddr(savedSlotOf(r)));
+                emittedStores++;
+            }
+        }
     }
 
     private void emitEpilogue() {
-        // Restaurar regs desde el fondo del frame (sp actual)
-        text.append("lw   $ra, 0($sp)\n");
-        text.append("lw   $fp, 4($sp)\n");
-        text.append("addiu $sp, $sp, ").append(frameBytes).append("\n");
-        text.append("jr   $ra\n");
+        if (alloc != null) {
+            for (String s : alloc.usedCalleeSaved()) {
+                Reg r = new Reg(s);
+                emit(LW, r, slotAddr(savedSlotOf(r)));
+                emittedLoads++;
+            }
+        }
+        if (!leaf) {
+            // Restaurar regs desde el fondo del frame (sp actual)
+            emit(LW, Reg.RA, new Mem(0, Reg.SP));
+            emit(LW, Reg.FP, new Mem(4, Reg.SP));
+        }
+        if (!leaf || frameBytes > 0) emit(ADDIU, Reg.SP, Reg.SP, imm(frameBytes));
+        emit(JR, Reg.RA);
     }
 
     private void emitReturn0() {
-        text.append("li   $v0, 0\n");
+        emit(LI, Reg.V0, imm(0));
         emitEpilogue();
-        text.append("\n");
     }
 
     // -------- Slots / Loads / Stores --------
-    private int slotOf(String name) {
+    private int slotOf(Name name) {
         if (name == null) throw new IllegalArgumentException("slot name null");
-        return slot.computeIfAbsent(name, k -> {
-            int s = nextSlot;   // -4, -8, -12, ...
-            nextSlot -= 4;
-            return s;
-        });
+        return slot.computeIfAbsent(name, k -> newSlot());
     }
 
-    private static boolean isInt(String s) {
-        return s != null && s.matches("-?\\d+");
+    private int savedSlotOf(Reg reg) {
+        return savedSlot.computeIfAbsent(reg, k -> newSlot());
     }
 
-    private static boolean isStringLit(String s) {
-        return s != null && s.length() >= 2 && s.charAt(0) == '"' && s.charAt(s.length() - 1) == '"';
+    // Dirección de un slot: relativa a $fp, o a $sp en hojas (fp = sp + frameBytes)
+    private Mem slotAddr(int off) {
+        return leaf ? new Mem(off + frameBytes, Reg.SP) : new Mem(off, Reg.FP);
     }
 
-    private static boolean isCharLit(String s) {
-        return s != null && s.length() >= 3 && s.charAt(0) == '\'' && s.charAt(s.length() - 1) == '\'';
+    private int newSlot() {
+        int s = nextSlot;   // -4, -8, -12, ...
+        nextSlot -= 4;
+        return s;
     }
 
-    // Convierte char literal a ASCII soporta escapes comunes
-    private static int charCode(String lit) {
-        if (!isCharLit(lit)) throw new IllegalArgumentException("Not char literal: " + lit);
-        String body = lit.substring(1, lit.length() - 1);
-        if (body.length() == 1) return (int) body.charAt(0);
+    static boolean isBuiltin(String fname) {
+        return BUILTINS.contains(fname);
+    }
 
-        if (body.length() == 2 && body.charAt(0) == '\\') {
-            char e = body.charAt(1);
-            return switch (e) {
-                case 'n' -> 10;
-                case 't' -> 9;
-                case 'r' -> 13;
-                case '\\' -> 92;
-                case '\'' -> 39;
-                case '\"' -> 34;
-                case '0' -> 0;
-                default -> e;
-            };
-        }
-        return (int) body.charAt(0);
+    private Reg regOf(Name name) {
+        String r = (alloc == null) ? null : alloc.regOf(name);
+        return (r == null) ? null : new Reg(r);
     }
 
-    private void emitLoad(String src, String reg) {
-        if (isInt(src)) {
-            text.append("li   ").append(reg).append(", ").append(src).append("\n");
-        } else if (isCharLit(src)) {
-            text.append("li   ").append(reg).append(", ").append(charCode(src)).append("\n");
+    private void emit(MipsOp op, MipsOperand... args) {
+        fn.add(MipsInstr.of(op, args));
+    }
+
+    private static Imm imm(long v) {
+        return new Imm(v);
+    }
+
+    /**
+     * Carga un inmediato (int/char) o la dirección de un string en reg.
+     * Devuelve false si src es un nombre.
+     */
+    private boolean emitConst(Operand src, Reg reg) {
+        if (Operand.isConst(src)) {
+            emit(LI, reg, imm(Operand.constValue(src)));
+        } else if (src instanceof StrConst str) {
+            emit(LA, reg, str(str));
         } else {
-            int off = slotOf(src);
-            text.append("lw   ").append(reg).append(", ").append(off).append("($fp)\n");
+            return false;
+        }
+        return true;
+    }
+
+    private void emitLoad(Operand src, Reg reg) {
+        Reg r = use(src, reg);
+        if (!r.equals(reg)) emit(MOVE, reg, r);
+    }
+
+    private void emitStore(Reg reg, Name dst) {
+        emit(SW, reg, slotAddr(slotOf(dst)));
+        emittedStores++;
+    }
+
+    /**
+     * Devuelve el registro que tiene el valor de src: el asignado, o scratch
+     * después de cargar el literal / el slot.
+     */
+    private Reg use(Operand src, Reg scratch) {
+        if (!(src instanceof Name n)) {
+            emitConst(src, scratch);
+            return scratch;
         }
+        slotLoads++;
+        Reg r = regOf(n);
+        if (r != null) return r;
+        emit(LW, scratch, slotAddr(slotOf(n)));
+        emittedLoads++;
+        return scratch;
     }
 
-    private void emitStore(String reg, String dst) {
-        int off = slotOf(dst);
-        text.append("sw   ").append(reg).append(", ").append(off).append("($fp)\n");
+    // Registro donde calcular el resultado para dst
+    private Reg target(Name dst, Reg scratch) {
+        Reg r = regOf(dst);
+        return (r != null) ? r : scratch;
+    }
+
+    // Deja el valor de reg en dst (sw solo si dst vive en el stack)
+    private void commit(Name dst, Reg reg) {
+        slotStores++;
+        Reg r = regOf(dst);
+        if (r == null) {
+            emitStore(reg, dst);
+        } else if (!r.equals(reg)) {
+            emit(MOVE, r, reg);
+        }
     }
 
     // -------- TAC -> MIPS --------
     private void emitMov(TacInstr i) {
-        if (i.r == null) return;
-
-        if (isInt(i.a)) {
-            text.append("li   $t0, ").append(i.a).append("\n");
-        } else if (isStringLit(i.a)) {
-            String label = stringLabel(i.a);
-            text.append("la   $t0, ").append(label).append("\n");
-        } else if (isCharLit(i.a)) {
-            text.append("li   $t0, ").append(charCode(i.a)).append("\n");
-        } else {
-            emitLoad(i.a, "$t0");
+        Name dst = i.def();
+        if (dst == null) return;
+
+        Reg d = target(dst, Reg.T0);
+        if (!emitConst(i.a, d)) {
+            Reg s = use(i.a, Reg.T0);
+            if (!s.equals(d)) emit(MOVE, d, s);
         }
-        emitStore("$t0", i.r);
+        commit(dst, d);
     }
 
     private void emitBinArith(TacInstr i) {
-        emitLoad(i.a, "$t0");
-        emitLoad(i.b, "$t1");
+        if (allocateRegisters && (emitArithImm(i) || emitMulImm(i) || emitDivImm(i) || emitDivMagic(i))) return;
+        Reg a = use(i.a, Reg.T0);
+        Reg b = use(i.b, Reg.T1);
+        Reg d = target(i.def(), Reg.T2);
 
         switch (i.op) {
-            case ADD -> text.append("addu $t2, $t0, $t1\n");
-            case SUB -> text.append("subu $t2, $t0, $t1\n");
-            case MUL -> text.append("mul  $t2, $t0, $t1\n"); // SPIM pseudo
+            case ADD -> emit(ADDU, d, a, b);
+            case SUB -> emit(SUBU, d, a, b);
+            case MUL -> emit(MUL, d, a, b); // SPIM pseudo
             case DIV -> {
-                text.append("div  $t0, $t1\n");
-                text.append("mflo $t2\n");
+                emit(DIV, a, b);
+                emit(MFLO, d);
             }
             case MOD -> {
-                text.append("div  $t0, $t1\n");
-                text.append("mfhi $t2\n");
+                emit(DIV, a, b);
+                emit(MFHI, d);
             }
         }
-        emitStore("$t2", i.r);
+        commit(i.def(), d);
     }
 
     private void emitCmp(TacInstr i) {
-        emitLoad(i.a, "$t0");
-        emitLoad(i.b, "$t1");
+        if (allocateRegisters && emitCmpImm(i)) return;
+        Reg a = use(i.a, Reg.T0);
+        Reg b = use(i.b, Reg.T1);
+        Reg d = target(i.def(), Reg.T2);
 
         switch (i.op) {
-            case LT -> text.append("slt  $t2, $t0, $t1\n");
+            case LT -> emit(SLT, d, a, b);
             case LE -> {
-                text.append("slt  $t2, $t1, $t0\n");
-                text.append("xori $t2, $t2, 1\n");
+                emit(SLT, d, b, a);
+                emit(XORI, d, d, imm(1));
             }
-            case GT -> text.append("slt  $t2, $t1, $t0\n");
+            case GT -> emit(SLT, d, b, a);
             case GE -> {
-                text.append("slt  $t2, $t0, $t1\n");
-                text.append("xori $t2, $t2, 1\n");
+                emit(SLT, d, a, b);
+                emit(XORI, d, d, imm(1));
             }
-            case EQ -> text.append("seq  $t2, $t0, $t1\n");
-            case NEQ -> text.append("sne  $t2, $t0, $t1\n");
+            case EQ -> emit(SEQ, d, a, b);
+            case NEQ -> emit(SNE, d, a, b);
         }
-        emitStore("$t2", i.r);
+        commit(i.def(), d);
     }
 
     private void emitLogic(TacInstr i) {
-        emitLoad(i.a, "$t0");
-        emitLoad(i.b, "$t1");
-        text.append("sne  $t0, $t0, $zero\n");
-        text.append("sne  $t1, $t1, $zero\n");
+        if (allocateRegisters && emitLogicImm(i)) return;
+        // normalizar en scratch: nunca pisar el registro de un operando
+        Reg a = use(i.a, Reg.T0);
+        Reg b = use(i.b, Reg.T1);
+        emit(SNE, Reg.T0, a, Reg.ZERO);
+        emit(SNE, Reg.T1, b, Reg.ZERO);
+        Reg d = target(i.def(), Reg.T2);
         if (i.op == TacOp.AND) {
-            text.append("and  $t2, $t0, $t1\n");
+            emit(AND, d, Reg.T0, Reg.T1);
         } else {
-            text.append("or   $t2, $t0, $t1\n");
+            emit(OR, d, Reg.T0, Reg.T1);
         }
-        emitStore("$t2", i.r);
+        commit(i.def(), d);
     }
 
     private void emitNot(TacInstr i) {
-        emitLoad(i.a, "$t0");
-        text.append("sne  $t0, $t0, $zero\n");
-        text.append("xori $t2, $t0, 1\n");
-        emitStore("$t2", i.r);
+        Reg a = use(i.a, Reg.T0);
+        emit(SNE, Reg.T0, a, Reg.ZERO);
+        Reg d = target(i.def(), Reg.T2);
+        emit(XORI, d, Reg.T0, imm(1));
+        commit(i.def(), d);
+    }
+
+    // -------- Formas inmediatas (-O) --------
+    // Cada una devuelve false, sin emitir nada, si la forma no aplica.
+
+    private static boolean isSimm16(long v) {
+        return v >= -32768 && v <= 32767;
+    }
+
+    private static boolean isUimm16(long v) {
+        return v >= 0 && v <= 65535;
+    }
+
+    // ADD x, c / ADD c, x / SUB x, c  ->  addiu (SUB con -c)
+    private boolean emitArithImm(TacInstr i) {
+        Operand x;
+        long c;
+        if (i.op == TacOp.ADD && Operand.isConst(i.b) && isSimm16(Operand.constValue(i.b))) {
+            x = i.a;
+            c = Operand.constValue(i.b);
+        } else if (i.op == TacOp.ADD && Operand.isConst(i.a) && isSimm16(Operand.constValue(i.a))) {
+            x = i.b;
+            c = Operand.constValue(i.a);
+        } else if (i.op == TacOp.SUB && Operand.isConst(i.b) && isSimm16(-(long) Operand.constValue(i.b))) {
+            x = i.a;
+            c = -(long) Operand.constValue(i.b);
+        } else {
+            return false;
+        }
+        Reg a = use(x, Reg.T0);
+        Reg d = target(i.def(), Reg.T2);
+        emit(ADDIU, d, a, imm(c));
+        commit(i.def(), d);
+        return true;
+    }
+
+    /**
+     * MUL por constante sin mul: c = 0, ±2^k (sll [+ subu]) y c = 2^h ± 2^l
+     * (dos sll + addu/subu). El resto queda en mul.
+     */
+    private boolean emitMulImm(TacInstr i) {
+        if (i.op != TacOp.MUL) return false;
+        Operand x;
+        long c;
+        if (Operand.isConst(i.b)) {
+            x = i.a;
+            c = Operand.constValue(i.b);
+        } else if (Operand.isConst(i.a)) {
+            x = i.b;
+            c = Operand.constValue(i.a);
+        } else {
+            return false;
+        }
+        long m = Math.abs(c);
+        if (m != 0 && !((c > 0) ? mulByShifts(m) : Long.bitCount(m) == 1)) return false;
+
+        Reg d = target(i.def(), Reg.T2);
+        if (m == 0) {
+            emit(LI, d, imm(0));
+            commit(i.def(), d);
+            return true;
+        }
+        Reg a = use(x, Reg.T0);
+        if (c < 0) {
+            emitMulShifts(Reg.T1, a, m, Reg.T2);
+            emit(SUBU, d, Reg.ZERO, Reg.T1);
+        } else {
+            emitMulShifts(d, a, m, Reg.T1);
+        }
+        commit(i.def(), d);
+        return true;
+    }
+
+    // m = 2^k, 2^h + 2^l o 2^h - 2^l (m > 0): se multiplica con sll y addu/subu
+    private static boolean mulByShifts(long m) {
+        return Long.bitCount(m) <= 2 || Long.bitCount(m + Long.lowestOneBit(m)) == 1;
+    }
+
+    // dst = src * m con mulByShifts(m); tmp es scratch distinto de src (dst puede ser src)
+    private void emitMulShifts(Reg dst, Reg src, long m, Reg tmp) {
+        int l = Long.numberOfTrailingZeros(m);
+        if (Long.bitCount(m) == 1) {
+            Reg r = shiftLeft(dst, src, l);
+            if (!r.equals(dst)) emit(MOVE, dst, r);
+            return;
+        }
+        boolean sum = Long.bitCount(m) == 2;
+        int h = Long.numberOfTrailingZeros(sum ? Long.highestOneBit(m) : m + Long.lowestOneBit(m));
+        shiftLeft(tmp, src, h);
+        Reg lo = shiftLeft(dst, src, l);
+        emit(sum ? ADDU : SUBU, dst, tmp, lo);
+    }
+
+    // dst = src << k; con k = 0 no emite nada y devuelve src
+    private Reg shiftLeft(Reg dst, Reg src, int k) {
+        if (k == 0) return src;
+        emit(SLL, dst, src, imm(k));
+        return dst;
+    }
+
+    /**
+     * DIV/MOD por ±2^k con signo (truncando hacia 0, como div):
+     * bias = (x &lt; 0) ? 2^k - 1 : 0 (sra 31 + srl 32-k);
+     * x / 2^k = (x + bias) sra k, negado si c &lt; 0;
+     * x % 2^k = ((x + bias) &amp; (2^k - 1)) - bias (el signo de c no importa).
+     */
+    private boolean emitDivImm(TacInstr i) {
+        if ((i.op != TacOp.DIV && i.op != TacOp.MOD) || !Operand.isConst(i.b)) return false;
+        long c = Operand.constValue(i.b);
+        long m = Math.abs(c);
+        if (m == 0 || Long.bitCount(m) != 1) return false;
+        int k = Long.numberOfTrailingZeros(m);
+        if (i.op == TacOp.MOD && k > 16) return false;   // máscara fuera de andi
+
+        Reg d = target(i.def(), Reg.T2);
+        if (i.op == TacOp.MOD && k == 0) {
+            emit(LI, d, imm(0));
+            commit(i.def(), d);
+            return true;
+        }
+        Reg a = use(i.a, Reg.T0);
+        if (k > 0) {
+            if (k == 1) {
+                emit(SRL, Reg.T1, a, imm(31));
+            } else {
+                emit(SRA, Reg.T1, a, imm(31));
+                emit(SRL, Reg.T1, Reg.T1, imm(32 - k));
+            }
+        }
+        if (i.op == TacOp.MOD) {
+            emit(ADDU, Reg.T2, a, Reg.T1);
+            emit(ANDI, Reg.T2, Reg.T2, imm(m - 1));
+            emit(SUBU, d, Reg.T2, Reg.T1);
+        } else {
+            Reg q = a;
+            if (k > 0) {
+                emit(ADDU, Reg.T1, a, Reg.T1);
+                q = (c < 0) ? Reg.T1 : d;
+                emit(SRA, q, Reg.T1, imm(k));
+            }
+            if (c < 0) emit(SUBU, d, Reg.ZERO, q);
+            else if (!q.equals(d)) emit(MOVE, d, q);
+        }
+        commit(i.def(), d);
+        return true;
+    }
+
+    /**
+     * DIV/MOD por el resto de las constantes (|c| &gt;= 2, lo que no tomó
+     * emitDivImm): número mágico ({@link DivMagic}) con mult + mfhi, y
+     * x % c = x - (x / c) * c, con el producto por shifts si se puede.
+     */
+    private boolean emitDivMagic(TacInstr i) {
+        if ((i.op != TacOp.DIV && i.op != TacOp.MOD) || !Operand.isConst(i.b)) return false;
+        int c = Operand.constValue(i.b);
+        if (c >= -1 && c <= 1) return false;
+        DivMagic mg = DivMagic.of(c);
+
+        Reg a = use(i.a, Reg.T0);
+        Reg d = target(i.def(), Reg.T2);
+        emit(LI, Reg.T1, imm(mg.multiplier));
+        emit(MULT, a, Reg.T1);
+        emit(MFHI, Reg.T1);
+        if (c > 0 && mg.multiplier < 0) emit(ADDU, Reg.T1, Reg.T1, a);
+        if (c < 0 && mg.multiplier > 0) emit(SUBU, Reg.T1, Reg.T1, a);
+        if (mg.shift > 0) emit(SRA, Reg.T1, Reg.T1, imm(mg.shift));
+        emit(SRL, Reg.T2, Reg.T1, imm(31));
+        if (i.op == TacOp.DIV) {
+            emit(ADDU, d, Reg.T1, Reg.T2);
+        } else {
+            emit(ADDU, Reg.T1, Reg.T1, Reg.T2);
+            long m = Math.abs((long) c);
+            if (mulByShifts(m)) {
+                emitMulShifts(Reg.T1, Reg.T1, m, Reg.T2);
+            } else {
+                emit(LI, Reg.T2, imm(m));
+                emit(MUL, Reg.T1, Reg.T1, Reg.T2);
+            }
+            emit((c > 0) ? SUBU : ADDU, d, a, Reg.T1);
+        }
+        commit(i.def(), d);
+        return true;
+    }
+
+    /**
+     * Comparación contra constante (la constante a la derecha, espejando el op):
+     * x &lt; c: slti; x &lt;= c: slti c+1; x &gt;= c: slti + xori;
+     * x == / != 0: sltiu / sltu; x == / != c: xori y lo mismo.
+     * x &gt; c no gana nada (li + slt) y queda en la forma general.
+     */
+    private boolean emitCmpImm(TacInstr i) {
+        TacOp op = i.op;
+        Operand x = i.a, k = i.b;
+        if (Operand.isConst(x) && !Operand.isConst(k)) {
+            x = i.b;
+            k = i.a;
+            op = mirror(op);
+        }
+        if (!Operand.isConst(k)) return false;
+        long c = Operand.constValue(k);
+        boolean ok = switch (op) {
+            case LT, GE -> isSimm16(c);
+            case LE -> isSimm16(c + 1);
+            case EQ, NEQ -> isUimm16(c);
+            default -> false;
+        };
+        if (!ok) return false;
+
+        Reg a = use(x, Reg.T0);
+        Reg d = target(i.def(), Reg.T2);
+        switch (op) {
+            case LT -> emit(SLTI, d, a, imm(c));
+            case LE -> emit(SLTI, d, a, imm(c + 1));
+            case GE -> {
+                emit(SLTI, d, a, imm(c));
+                emit(XORI, d, d, imm(1));
+            }
+            default -> {
+                if (c != 0) {
+                    emit(XORI, d, a, imm(c));
+                    a = d;
+                }
+                if (op == TacOp.EQ) {
+                    emit(SLTIU, d, a, imm(1));
+                } else {
+                    emit(SLTU, d, Reg.ZERO, a);
+                }
+            }
+        }
+        commit(i.def(), d);
+        return true;
+    }
+
+    // AND/OR lógicos con una constante: el resultado es fijo o solo (x != 0)
+    private boolean emitLogicImm(TacInstr i) {
+        Operand x = i.a, k = i.b;
+        if (Operand.isConst(x)) {
+            x = i.b;
+            k = i.a;
+        }
+        if (!Operand.isConst(k)) return false;
+        boolean truthy = Operand.constValue(k) != 0;
+        Reg d = target(i.def(), Reg.T2);
+        if ((i.op == TacOp.AND) != truthy) {
+            // AND x, 0 = 0 ; OR x, c!=0 = 1
+            emit(LI, d, imm(truthy ? 1 : 0));
+        } else {
+            Reg a = use(x, Reg.T0);
+            emit(SNE, d, a, Reg.ZERO);
+        }
+        commit(i.def(), d);
+        return true;
+    }
+
+    // -------- Compare-and-branch (-O) --------
+
+    /**
+     * Marca las comparaciones seguidas de un IFZ/IFNZ sobre su resultado
+     * cuando ese es el único uso: el booleano no hace falta materializarlo.
+     */
+    private void findFusedCompares(TacFunction f) {
+        Map<Name, Integer> useCount = new HashMap<>();
+        for (List<Name> us : LiveIntervals.usesOf(f)) {
+            for (Name u : us) useCount.merge(u, 1, Integer::sum);
+        }
+        for (int k = 0; k + 1 < f.code.size(); k++) {
+            TacInstr c = f.code.get(k), br = f.code.get(k + 1);
+            if (!isCompare(c.op) || (br.op != TacOp.IFZ && br.op != TacOp.IFNZ)) continue;
+            if (c.def() != null && c.def().equals(br.a) && useCount.get(c.def()) == 1) fusedCmp.add(c);
+        }
+    }
+
+    private static boolean isCompare(TacOp op) {
+        return switch (op) {
+            case LT, LE, GT, GE, EQ, NEQ -> true;
+            default -> false;
+        };
+    }
+
+    private static TacOp mirror(TacOp op) {
+        return switch (op) {
+            case LT -> TacOp.GT;
+            case GT -> TacOp.LT;
+            case LE -> TacOp.GE;
+            case GE -> TacOp.LE;
+            default -> op;
+        };
+    }
+
+    private static TacOp negate(TacOp op) {
+        return switch (op) {
+            case LT -> TacOp.GE;
+            case GE -> TacOp.LT;
+            case GT -> TacOp.LE;
+            case LE -> TacOp.GT;
+            case EQ -> TacOp.NEQ;
+            case NEQ -> TacOp.EQ;
+            default -> throw new IllegalArgumentException("no es comparación: " + op);
+        };
+    }
+
+    /**
+     * cmp + IFZ/IFNZ -> un salto sobre los operandos:
+     * ==, != con beq/bne; contra 0 con bltz/blez/bgtz/bgez; el resto con
+     * slt/slti en $t2 y beq/bne contra $zero.
+     */
+    private void emitCmpBranch(TacInstr c, TacInstr br) {
+        Sym target = canonLabel(br.labelName());
+        TacOp op = c.op;
+        Operand x = c.a, y = c.b;
+        if (Operand.isConst(x) && !Operand.isConst(y)) {
+            x = c.b;
+            y = c.a;
+            op = mirror(op);
+        }
+        // desde acá: saltar si x op y
+        if (br.op == TacOp.IFZ) op = negate(op);
+        boolean yZero = Operand.isConst(y) && Operand.constValue(y) == 0;
+
+        Reg a = use(x, Reg.T0);
+        if (op == TacOp.EQ || op == TacOp.NEQ) {
+            Reg b = yZero ? Reg.ZERO : use(y, Reg.T1);
+            emit(op == TacOp.EQ ? BEQ : BNE, a, b, target);
+            return;
+        }
+        if (yZero) {
+            MipsOp b = switch (op) {
+                case LT -> BLTZ;
+                case LE -> BLEZ;
+                case GT -> BGTZ;
+                default -> BGEZ;
+            };
+            emit(b, a, target);
+            return;
+        }
+
+        // LT/GE miran x < y; GT/LE miran y < x (con constante: x < y+1)
+        boolean strict = op == TacOp.LT || op == TacOp.GE;
+        boolean branchOnSet;
+        long k = Operand.isConst(y) ? Operand.constValue(y) + (strict ? 0 : 1) : 0;
+        if (Operand.isConst(y) && isSimm16(k)) {
+            emit(SLTI, Reg.T2, a, imm(k));
+            branchOnSet = (op == TacOp.LT || op == TacOp.LE);
+        } else {
+            Reg b = use(y, Reg.T1);
+            if (strict) {
+                emit(SLT, Reg.T2, a, b);
+                branchOnSet = op == TacOp.LT;
+            } else {
+                emit(SLT, Reg.T2, b, a);
+                branchOnSet = op == TacOp.GT;
+            }
+        }
+        emit(branchOnSet ? BNE : BEQ, Reg.T2, Reg.ZERO, target);
     }
 
     // -------- Memoria (global arrays) --------
     // LOAD: r = load baseLabel, offsetBytes
     private void emitLoadMem(TacInstr i) {
-        text.append("la   $t1, ").append(i.a).append("\n");
-        emitLoad(i.b, "$t2"); // offset in bytes
-        text.append("addu $t1, $t1, $t2\n");
-        text.append("lw   $t0, 0($t1)\n");
-        emitStore("$t0", i.r);
+        emit(LA, Reg.T1, new Sym(i.a.toString()));
+        Reg off = use(i.b, Reg.T2); // offset in bytes
+        emit(ADDU, Reg.T1, Reg.T1, off);
+        Reg d = target(i.def(), Reg.T0);
+        emit(LW, d, new Mem(0, Reg.T1));
+        commit(i.def(), d);
     }
 
     // STORE: store value -> baseLabel[offsetBytes]
     // a=value, b=baseLabel, r=offsetBytes
     private void emitStoreMem(TacInstr i) {
-        emitLoad(i.a, "$t0");
-        text.append("la   $t1, ").append(i.b).append("\n");
-        emitLoad(i.r, "$t2");
-        text.append("addu $t1, $t1, $t2\n");
-        text.append("sw   $t0, 0($t1)\n");
+        Reg v = use(i.a, Reg.T0);
+        emit(LA, Reg.T1, new Sym(i.b.toString()));
+        Reg off = use(i.r, Reg.T2);
+        emit(ADDU, Reg.T1, Reg.T1, off);
+        emit(SW, v, new Mem(0, Reg.T1));
     }
 
     // -------- Calls --------
     private void emitCall(TacInstr i) {
-        String fname = i.a;
-        int n = 0;
-        try { n = (i.b == null) ? 0 : Integer.parseInt(i.b); } catch (Exception ignored) {}
+        String fname = i.callee();
+        int n = i.argCount();
 
-        List<String> args = new ArrayList<>();
+        List<Operand> args = new ArrayList<>();
         for (int k = paramQueue.size() - n; k < paramQueue.size(); k++) {
             if (k >= 0 && k < paramQueue.size()) args.add(paramQueue.get(k));
         }
@@ -327,114 +916,92 @@ public class MipsGen {
         switch (fname) {
             case "printInt", "print_int" -> {
                 emitArgToA0(args, 0);
-                text.append("li $v0, 1\nsyscall\n");
+                emitSyscall(1);
             }
             case "printChar", "print_char" -> {
                 emitArgToA0(args, 0);
-                text.append("li $v0, 11\nsyscall\n");
+                emitSyscall(11);
             }
             case "printString", "print_str" -> {
-                if (!args.isEmpty() && isStringLit(args.get(0))) {
-                    String label = stringLabel(args.get(0));
-                    text.append("la   $a0, ").append(label).append("\n");
+                if (!args.isEmpty() && args.get(0) instanceof StrConst str) {
+                    emit(LA, Reg.A0, str(str));
                 } else {
                     emitArgToA0(args, 0);
                 }
-                text.append("li $v0, 4\nsyscall\n");
+                emitSyscall(4);
             }
             case "println", "nl" -> {
-                text.append("li $a0, 10\n");
-                text.append("li $v0, 11\nsyscall\n");
+                emit(LI, Reg.A0, imm(10));
+                emitSyscall(11);
             }
             default -> {
                 for (int k = 0; k < args.size() && k < 4; k++) {
                     emitArgToAi(args, k);
                 }
-                text.append("jal ").append(fname).append("\n");
-                if (i.r != null) emitStore("$v0", i.r);
+                emit(JAL, new Sym(fname));
+                if (i.def() != null) commit(i.def(), Reg.V0);
             }
         }
     }
 
-    private void emitArgToA0(List<String> args, int idx) {
+    private void emitSyscall(int code) {
+        emit(LI, Reg.V0, imm(code));
+        emit(SYSCALL);
+    }
+
+    private void emitArgToA0(List<Operand> args, int idx) {
         if (idx < 0 || idx >= args.size()) {
-            text.append("li   $a0, 0\n");
+            emit(LI, Reg.A0, imm(0));
             return;
         }
-        String a = args.get(idx);
-        if (isInt(a)) {
-            text.append("li   $a0, ").append(a).append("\n");
-        } else if (isStringLit(a)) {
-            String label = stringLabel(a);
-            text.append("la   $a0, ").append(label).append("\n");
-        } else if (isCharLit(a)) {
-            text.append("li   $a0, ").append(charCode(a)).append("\n");
-        } else {
-            emitLoad(a, "$a0");
-        }
+        Operand a = args.get(idx);
+        if (!emitConst(a, Reg.A0)) emitLoad(a, Reg.A0);
     }
 
-    private void emitArgToAi(List<String> args, int idx) {
+    private void emitArgToAi(List<Operand> args, int idx) {
         if (idx < 0 || idx >= args.size()) return;
-        String a = args.get(idx);
-        String reg = switch (idx) {
-            case 0 -> "$a0";
-            case 1 -> "$a1";
-            case 2 -> "$a2";
-            default -> "$a3";
-        };
-
-        if (isInt(a)) {
-            text.append("li   ").append(reg).append(", ").append(a).append("\n");
-        } else if (isStringLit(a)) {
-            String label = stringLabel(a);
-            text.append("la   ").append(reg).append(", ").append(label).append("\n");
-        } else if (isCharLit(a)) {
-            text.append("li   ").append(reg).append(", ").append(charCode(a)).append("\n");
-        } else {
-            emitLoad(a, reg);
-        }
+        Operand a = args.get(idx);
+        Reg reg = Reg.arg(Math.min(idx, 3));
+        if (!emitConst(a, reg)) emitLoad(a, reg);
     }
 
     // -------- Return --------
     private void emitRet(TacInstr i) {
         if (i.a != null) {
-            if (isInt(i.a)) {
-                text.append("li   $v0, ").append(i.a).append("\n");
-            } else if (isCharLit(i.a)) {
-                text.append("li   $v0, ").append(charCode(i.a)).append("\n");
-            } else {
-                emitLoad(i.a, "$v0");
-            }
+            if (!emitConst(i.a, Reg.V0)) emitLoad(i.a, Reg.V0);
         } else {
-            text.append("li   $v0, 0\n");
+            emit(LI, Reg.V0, imm(0));
         }
         emitEpilogue();
-        text.append("\n");
     }
 
     // -------- Labels (defense for null) --------
     private void emitLabel(String lbl) {
-        String L = canonLabel(lbl);
         if (lbl == null) {
             if (nullLabelEmitted) {
                 // avoid "Label defined for second time ... null:"
-                text.append("# (skip duplicate null label)\n");
+                fn.add(MipsInstr.comment("(skip duplicate null label)"));
                 return;
             }
             nullLabelEmitted = true;
         }
-        text.append(L).append(":\n");
+        fn.add(MipsInstr.label(canonLabel(lbl).label()));
     }
 
-    private String canonLabel(String lbl) {
-        return (lbl == null) ? NULL_LABEL : lbl;
+    private Sym canonLabel(String lbl) {
+        return new Sym((lbl == null) ? NULL_LABEL : lbl);
     }
 
     // -------- Strings --------
-    private String stringLabel(String literalWithQuotes) {
-        return stringPool.computeIfAbsent(literalWithQuotes, lit -> {
+    private Str str(StrConst s) {
+        fn.strings.putIfAbsent(s.id(), s);
+        return new Str(s.id());
+    }
+
+    private String stringLabel(StrConst str) {
+        return stringPool.computeIfAbsent(str.id(), id -> {
             String label = "str_" + (strCount++);
+            String lit = str.text();
             String body = lit.substring(1, lit.length() - 1);
             body = escapeAsciizBody(body);
 
@@ -456,18 +1023,64 @@ public class MipsGen {
         return out.toString();
     }
 
+    // 8 bytes para guardar $ra y $fp en el fondo del frame
+    private static int frameSize(int localsBytes) {
+        return Math.max(16, align16(localsBytes + 8));
+    }
+
     // -------- Pre-scan slots --------
-    private void preAllocateSlots(TacFunction f) {
-        LinkedHashSet<String> names = new LinkedHashSet<>();
+
+    /**
+     * Fija el slot de cada nombre de names. Sin intervalos, uno por nombre.
+     * Con intervalos, coloreo greedy del grafo de intervalos (óptimo): un slot
+     * se reusa cuando su dueño muere en la instrucción donde empieza el otro,
+     * que es seguro porque cada instrucción lee sus operandos antes de
+     * escribir el resultado.
+     */
+    private void assignSlots(Collection<Name> names, LiveIntervals live) {
+        if (live == null) {
+            for (Name n : names) slotOf(n);
+            return;
+        }
+        List<LiveIntervals.Interval> order = new ArrayList<>();
+        for (Name n : names) {
+            LiveIntervals.Interval it = live.of(n);
+            if (it != null) order.add(it);
+        }
+        order.sort(Comparator.comparingInt((LiveIntervals.Interval x) -> x.start)
+                .thenComparingInt(x -> x.end).thenComparingInt(x -> x.order));
+
+        Map<Name, Integer> color = new HashMap<>();
+        PriorityQueue<LiveIntervals.Interval> active =
+                new PriorityQueue<>(Comparator.comparingInt((LiveIntervals.Interval x) -> x.end));
+        PriorityQueue<Integer> free = new PriorityQueue<>();
+        int colors = 0;
+        for (LiveIntervals.Interval cur : order) {
+            while (!active.isEmpty() && active.peek().end <= cur.start) free.add(color.get(active.poll().name));
+            color.put(cur.name, free.isEmpty() ? colors++ : free.poll());
+            active.add(cur);
+        }
+
+        // un offset por color, en orden de aparición de los nombres
+        Map<Integer, Integer> colorSlot = new HashMap<>();
+        for (Name n : names) {
+            Integer c = color.get(n);
+            slot.put(n, (c == null) ? newSlot() : colorSlot.computeIfAbsent(c, k -> newSlot()));
+        }
+    }
+
+    /** Nombres que viven en el stack sin -O (params primero, en orden de aparición). */
+    private Set<Name> slotNames(TacFunction f) {
+        LinkedHashSet<Name> names = new LinkedHashSet<>();
 
         // params
-        for (String p : f.params) addName(names, p);
+        for (Name p : f.params) addName(names, p);
 
         for (TacInstr i : f.code) {
             switch (i.op) {
                 case LABEL, GOTO -> {
                 }
-                case IFZ -> {
+                case IFZ, IFNZ -> {
                     addName(names, i.a);
                     // i.b es label
                 }
@@ -495,13 +1108,11 @@ public class MipsGen {
                 }
             }
         }
-        for (String n : names) slotOf(n);
+        return names;
     }
 
-    private void addName(Set<String> names, String s) {
-        if (s == null) return;
-        if (isInt(s) || isStringLit(s) || isCharLit(s)) return;
-        names.add(s);
+    private void addName(Set<Name> names, Operand s) {
+        if (s instanceof Name n) names.add(n);
     }
 
     private static int align16(int n) {
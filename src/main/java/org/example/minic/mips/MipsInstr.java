@@ -0,0 +1,79 @@
+package org.example.minic.mips;
+
+import org.example.minic.mips.MipsOperand.Reg;
+import org.example.minic.mips.MipsOperand.Sym;
+
+import java.util.List;
+
+/**
+ * Una línea del cuerpo de una función MIPS: instrucción, label o comentario.
+ * Inmutable; los pases reemplazan instrucciones en la lista.
+ */
+final class MipsInstr {
+
+    final MipsOp op;                    // null en labels y comentarios
+    final List<MipsOperand> args;
+    private final String label;         // nombre del label
+    private final String comment;
+
+    private MipsInstr(MipsOp op, List<MipsOperand> args, String label, String comment) {
+        this.op = op;
+        this.args = args;
+        this.label = label;
+        this.comment = comment;
+    }
+
+    static MipsInstr of(MipsOp op, MipsOperand... args) {
+        return new MipsInstr(op, List.of(args), null, null);
+    }
+
+    static MipsInstr label(String name) {
+        return new MipsInstr(null, List.of(), name, null);
+    }
+
+    static MipsInstr comment(String text) {
+        return new MipsInstr(null, List.of(), null, text);
+    }
+
+    boolean isInstr() {
+        return op != null;
+    }
+
+    boolean isLabel() {
+        return label != null;
+    }
+
+    String labelName() {
+        return label;
+    }
+
+    String commentText() {
+        return comment;
+    }
+
+    MipsOperand arg(int k) {
+        return args.get(k);
+    }
+
+    /** Registro que escribe la instrucción, o null. */
+    Reg def() {
+        return (op != null && op.definesFirst()) ? (Reg) args.get(0) : null;
+    }
+
+    /** Label destino de un j o branch, o null. */
+    String target() {
+        if (op == MipsOp.J || (op != null && op.isBranch())) return ((Sym) args.get(args.size() - 1)).label();
+        return null;
+    }
+
+    /** La misma instrucción con otro opcode y el último operando cambiado. */
+    MipsInstr retarget(MipsOp newOp, String newTarget) {
+        MipsOperand[] a = args.toArray(new MipsOperand[0]);
+        a[a.length - 1] = new Sym(newTarget);
+        return of(newOp, a);
+    }
+
+    @Override public String toString() {
+        return MipsEmitter.format(this);
+    }
+}
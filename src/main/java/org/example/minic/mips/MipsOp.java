@@ -0,0 +1,49 @@
+package org.example.minic.mips;
+
+import java.util.Locale;
+
+/**
+ * Opcodes que emite MipsGen (incluye pseudo-instrucciones de SPIM: li, la,
+ * move, mul, seq, sne). div es siempre la forma de dos operandos (hi/lo).
+ */
+enum MipsOp {
+    LI, LA, MOVE, LW, SW,
+    ADDU, SUBU, ADDIU, MUL, MULT, DIV, MFHI, MFLO,
+    AND, OR, ANDI, XORI, SLL, SRA, SRL,
+    SLT, SLTI, SLTU, SLTIU, SEQ, SNE,
+    BEQ, BNE, BLTZ, BGEZ, BLEZ, BGTZ,
+    J, JAL, JR, SYSCALL;
+
+    String mnemonic() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /** true si el primer operando es el registro que se escribe. */
+    boolean definesFirst() {
+        return switch (this) {
+            case SW, MULT, DIV, J, JAL, JR, SYSCALL -> false;
+            default -> !isBranch();
+        };
+    }
+
+    /** Branch condicional (el último operando es el label). */
+    boolean isBranch() {
+        return switch (this) {
+            case BEQ, BNE, BLTZ, BGEZ, BLEZ, BGTZ -> true;
+            default -> false;
+        };
+    }
+
+    /** Branch con la condición opuesta. */
+    MipsOp inverse() {
+        return switch (this) {
+            case BEQ -> BNE;
+            case BNE -> BEQ;
+            case BLTZ -> BGEZ;
+            case BGEZ -> BLTZ;
+            case BLEZ -> BGTZ;
+            case BGTZ -> BLEZ;
+            default -> throw new IllegalArgumentException("no es branch: " + this);
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.minic.mips;
+
+/**
+ * Operando de una instrucción MIPS; toString es la sintaxis de SPIM.
+ */
+sealed interface MipsOperand {
+
+    record Reg(String name) implements MipsOperand {
+        static final Reg ZERO = new Reg("$zero");
+        static final Reg V0 = new Reg("$v0");
+        static final Reg A0 = new Reg("$a0");
+        static final Reg T0 = new Reg("$t0");
+        static final Reg T1 = new Reg("$t1");
+        static final Reg T2 = new Reg("$t2");
+        static final Reg SP = new Reg("$sp");
+        static final Reg FP = new Reg("$fp");
+        static final Reg RA = new Reg("$ra");
+
+        /** $a0..$a3. */
+        static Reg arg(int k) {
+            return new Reg("$a" + k);
+        }
+
+        @Override public String toString() {
+            return name;
+        }
+    }
+
+    /** Inmediato (o constante de li). */
+    record Imm(long value) implements MipsOperand {
+        @Override public String toString() {
+            return Long.toString(value);
+        }
+    }
+
+    /** Palabra en offset(base). */
+    record Mem(int offset, Reg base) implements MipsOperand {
+        @Override public String toString() {
+            return offset + "(" + base + ")";
+        }
+    }
+
+    /**
+     * String del pool (StrConst.id). El label str_N se numera al escribir
+     * la función, en orden de fuente (ver MipsGen.write).
+     */
+    record Str(int id) implements MipsOperand {
+        @Override public String toString() {
+            return "str#" + id;
+        }
+    }
+
+    /** Label: destino de un salto o dirección de la, o función de jal. */
+    record Sym(String label) implements MipsOperand {
+        @Override public String toString() {
+            return label;
+        }
+    }
+}
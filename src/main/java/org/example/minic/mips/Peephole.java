@@ -0,0 +1,256 @@
+package org.example.minic.mips;
+
+import org.example.minic.mips.MipsOperand.Imm;
+import org.example.minic.mips.MipsOperand.Mem;
+import org.example.minic.mips.MipsOperand.Reg;
+
+import java.util.*;
+
+/**
+ * Peephole sobre el cuerpo de una función ({@link MipsInstr}), hasta punto fijo.
+ * - Reglas de ventana (tabla RULES): move a sí mismo, salto al label
+ *   siguiente, branch sobre un j (se invierte) y código inalcanzable
+ *   después de j/jr.
+ * - Un recorrido por bloque que sigue qué tiene cada registro (constante,
+ *   dirección o palabra de memoria): forwarding de sw a lw, loads repetidos
+ *   y li/la de un valor que el registro ya tiene.
+ * Cada regla cuenta sus aciertos (ver {@link #hits()}).
+ */
+final class Peephole {
+
+    /** Regla de ventana: mira code desde i y devuelve true si cambió algo. */
+    private interface Rule {
+        String name();
+
+        boolean apply(List<MipsInstr> code, int i);
+    }
+
+    // nombres de las reglas del recorrido por bloque
+    static final String STORE_LOAD = "store-load-forward";
+    static final String REDUNDANT_LOAD = "redundant-load";
+    static final String REDUNDANT_CONST = "redundant-li";
+
+    // syscalls de impresión/salida: no tocan registros ni memoria
+    private static final Set<Long> PRINT_SYSCALLS = Set.of(1L, 4L, 10L, 11L);
+
+    private final List<Rule> rules = List.of(
+            rule("self-move", Peephole::selfMove),
+            rule("jump-to-next", Peephole::jumpToNext),
+            rule("branch-over-jump", Peephole::branchOverJump),
+            rule("unreachable", Peephole::unreachable));
+
+    // con -j varias funciones corren a la vez: hits se toca solo vía hit()
+    private final Map<String, Integer> hits = new LinkedHashMap<>();
+
+    Peephole() {
+        for (Rule r : rules) hits.put(r.name(), 0);
+        hits.put(STORE_LOAD, 0);
+        hits.put(REDUNDANT_LOAD, 0);
+        hits.put(REDUNDANT_CONST, 0);
+    }
+
+    /** Aciertos por regla, acumulados desde el último reset. */
+    synchronized Map<String, Integer> hits() {
+        return new LinkedHashMap<>(hits);
+    }
+
+    synchronized void reset() {
+        hits.replaceAll((k, v) -> 0);
+    }
+
+    private synchronized void hit(String rule) {
+        hits.merge(rule, 1, Integer::sum);
+    }
+
+    /** Optimiza code en el lugar. */
+    void run(List<MipsInstr> code) {
+        boolean changed = true;
+        while (changed) {
+            changed = trackValues(code);
+            for (int i = 0; i < code.size(); i++) {
+                for (Rule r : rules) {
+                    if (r.apply(code, i)) {
+                        hit(r.name());
+                        changed = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private static Rule rule(String name, java.util.function.BiPredicate<List<MipsInstr>, Integer> f) {
+        return new Rule() {
+            @Override public String name() {
+                return name;
+            }
+
+            @Override public boolean apply(List<MipsInstr> code, int i) {
+                return i < code.size() && f.test(code, i);
+            }
+        };
+    }
+
+    // -------- Reglas de ventana --------
+
+    // move R, R
+    private static boolean selfMove(List<MipsInstr> code, int i) {
+        MipsInstr x = code.get(i);
+        if (x.op != MipsOp.MOVE || !x.arg(0).equals(x.arg(1))) return false;
+        code.remove(i);
+        return true;
+    }
+
+    // j L / bXX ..., L seguido de L:
+    private static boolean jumpToNext(List<MipsInstr> code, int i) {
+        String target = code.get(i).target();
+        if (target == null || !labelsAfter(code, i).contains(target)) return false;
+        code.remove(i);
+        return true;
+    }
+
+    // bXX ..., L1 ; j L2 ; L1:  ->  bYY ..., L2 ; L1:
+    private static boolean branchOverJump(List<MipsInstr> code, int i) {
+        MipsInstr b = code.get(i);
+        if (!b.isInstr() || !b.op.isBranch()) return false;
+        int k = nextNonBlank(code, i);
+        if (k < 0 || code.get(k).op != MipsOp.J) return false;
+        if (!labelsAfter(code, k).contains(b.target())) return false;
+        code.set(i, b.retarget(b.op.inverse(), code.get(k).target()));
+        code.remove(k);
+        return true;
+    }
+
+    // instrucciones entre j/jr y el próximo label
+    private static boolean unreachable(List<MipsInstr> code, int i) {
+        MipsInstr x = code.get(i);
+        if (x.op != MipsOp.J && x.op != MipsOp.JR) return false;
+        int k = nextNonBlank(code, i);
+        if (k < 0 || !code.get(k).isInstr()) return false;
+        code.remove(k);
+        return true;
+    }
+
+    // próxima instrucción o label (salteando comentarios)
+    private static int nextNonBlank(List<MipsInstr> code, int i) {
+        for (int k = i + 1; k < code.size(); k++) {
+            if (code.get(k).isInstr() || code.get(k).isLabel()) return k;
+        }
+        return -1;
+    }
+
+    // labels consecutivos después de i (antes de la próxima instrucción)
+    private static Set<String> labelsAfter(List<MipsInstr> code, int i) {
+        Set<String> out = new HashSet<>();
+        for (int k = nextNonBlank(code, i); k >= 0 && code.get(k).isLabel(); k = nextNonBlank(code, k)) {
+            out.add(code.get(k).labelName());
+        }
+        return out;
+    }
+
+    // -------- Valores por bloque --------
+
+    /** reg tiene value: Imm (li), Sym (la) o Mem (palabra; stored: vino de un sw). */
+    private record Fact(Reg reg, MipsOperand value, boolean stored) { }
+
+    /**
+     * Recorre cada bloque siguiendo los valores conocidos de los registros.
+     * Se descarta todo en labels, jal y j/jr; un sw mata las palabras que
+     * podrían ser la misma (otra base, o igual base y offset).
+     */
+    private boolean trackValues(List<MipsInstr> code) {
+        boolean changed = false;
+        List<Fact> facts = new ArrayList<>();
+        for (int i = 0; i < code.size(); i++) {
+            MipsInstr x = code.get(i);
+            if (!x.isInstr()) {
+                if (x.isLabel()) facts.clear();
+                continue;
+            }
+            switch (x.op) {
+                case LI, LA -> {
+                    Reg r = x.def();
+                    if (holds(facts, r, x.arg(1))) {
+                        code.remove(i--);
+                        hit(REDUNDANT_CONST);
+                        changed = true;
+                        continue;
+                    }
+                    kill(facts, r);
+                    facts.add(new Fact(r, x.arg(1), false));
+                }
+                case LW -> {
+                    Reg r = x.def();
+                    Mem v = (Mem) x.arg(1);
+                    if (holds(facts, r, v)) {
+                        code.remove(i--);
+                        hit(REDUNDANT_LOAD);
+                        changed = true;
+                        continue;
+                    }
+                    Fact src = find(facts, v);
+                    if (src != null) {
+                        code.set(i, MipsInstr.of(MipsOp.MOVE, r, src.reg));
+                        hit(src.stored ? STORE_LOAD : REDUNDANT_LOAD);
+                        changed = true;
+                    }
+                    kill(facts, r);
+                    if (!r.equals(v.base())) facts.add(new Fact(r, v, false));
+                }
+                case SW -> {
+                    Mem addr = (Mem) x.arg(1);
+                    facts.removeIf(f -> f.value instanceof Mem m && mayAlias(m, addr));
+                    facts.add(new Fact((Reg) x.arg(0), addr, true));
+                }
+                case MOVE -> {
+                    Reg r = x.def(), s = (Reg) x.arg(1);
+                    if (r.equals(s)) continue;
+                    List<Fact> copied = new ArrayList<>();
+                    for (Fact f : facts) {
+                        if (f.reg.equals(s)) copied.add(new Fact(r, f.value, f.stored));
+                    }
+                    kill(facts, r);
+                    for (Fact f : copied) {
+                        if (!(f.value instanceof Mem m) || !r.equals(m.base())) facts.add(f);
+                    }
+                }
+                case JAL, J, JR -> facts.clear();
+                case SYSCALL -> {
+                    // print/exit no tocan nada; otra syscall puede escribir $v0 y memoria
+                    Fact v0 = null;
+                    for (Fact f : facts) {
+                        if (f.reg.equals(Reg.V0) && f.value instanceof Imm) v0 = f;
+                    }
+                    if (v0 == null || !PRINT_SYSCALLS.contains(((Imm) v0.value).value())) facts.clear();
+                }
+                default -> {
+                    if (x.def() != null) kill(facts, x.def());
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static boolean holds(List<Fact> facts, Reg reg, MipsOperand value) {
+        for (Fact f : facts) {
+            if (f.reg.equals(reg) && f.value.equals(value)) return true;
+        }
+        return false;
+    }
+
+    private static Fact find(List<Fact> facts, MipsOperand value) {
+        for (Fact f : facts) {
+            if (f.value.equals(value)) return f;
+        }
+        return null;
+    }
+
+    // reg cambió: pierde sus valores, y las palabras direccionadas con reg también
+    private static void kill(List<Fact> facts, Reg reg) {
+        facts.removeIf(f -> f.reg.equals(reg) || (f.value instanceof Mem m && reg.equals(m.base())));
+    }
+
+    // palabras en off(base): misma base y distinto offset no se pisan
+    private static boolean mayAlias(Mem a, Mem b) {
+        return !a.base().equals(b.base()) || a.equals(b);
+    }
+}
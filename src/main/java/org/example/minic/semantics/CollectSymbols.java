@@ -1,6 +1,7 @@
 package org.example.minic.semantics;
 
 import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
 import org.example.minic.parser.MiniCBaseVisitor;
 import org.example.minic.parser.MiniCParser;
 
@@ -16,6 +17,12 @@ public class CollectSymbols extends MiniCBaseVisitor<Void> {
 
     public Scope getScopeOf(Object node) { return scopeOf.get(node); }
 
+    /** Olvida los scopes de un subárbol que ya no se va a visitar (TacGen en modo pipeline). */
+    public void forget(ParseTree node) {
+        scopeOf.remove(node);
+        for (int i = 0; i < node.getChildCount(); i++) forget(node.getChild(i));
+    }
+
     @Override
     public Void visitProgram(MiniCParser.ProgramContext ctx) {
         scopeOf.put(ctx, st.current()); // global
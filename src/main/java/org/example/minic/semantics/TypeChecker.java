@@ -2,24 +2,59 @@ package org.example.minic.semantics;
 
 import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.tree.ParseTree;
-import org.antlr.v4.runtime.tree.ParseTreeProperty;
 import org.example.minic.parser.MiniCBaseVisitor;
 import org.example.minic.parser.MiniCParser;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Chequeo de tipos. Con un pool (-j), cada declaración de nivel superior se
+ * chequea en un worker con su propio buffer de errores; los buffers se
+ * agregan a st.errors en orden de fuente, así los mensajes salen igual que
+ * en serie. Los scopes ya están completos (CollectSymbols) y solo se leen.
+ */
 public class TypeChecker extends MiniCBaseVisitor<Type> {
 
     private final SymbolTable st;
     private final CollectSymbols cs;
+    private final ForkJoinPool pool;
 
-    private final ParseTreeProperty<Type> typeOf = new ParseTreeProperty<>();
+    // nodo -> tipo (por identidad); con pool lo comparten los workers
+    private final Map<ParseTree, Type> typeOf;
     public Type getType(ParseTree n) { return typeOf.get(n); }
-    private void set(ParseTree n, Type t) { typeOf.put(n, t); }
+    private void set(ParseTree n, Type t) { if (t != null) typeOf.put(n, t); }
+
+    // st.errors, o el buffer propio de un worker
+    private final List<String> errors;
+    private void error(String msg) { errors.add(msg); }
 
     private FuncSymbol currentFunc;
 
     public TypeChecker(SymbolTable st, CollectSymbols cs) {
+        this(st, cs, null);
+    }
+
+    public TypeChecker(SymbolTable st, CollectSymbols cs, ForkJoinPool pool) {
         this.st = st;
         this.cs = cs;
+        this.pool = pool;
+        this.typeOf = (pool != null) ? new ConcurrentHashMap<>() : new IdentityHashMap<>();
+        this.errors = st.errors;
+    }
+
+    // worker: comparte tablas con parent, errores aparte
+    private TypeChecker(TypeChecker parent) {
+        this.st = parent.st;
+        this.cs = parent.cs;
+        this.pool = null;
+        this.typeOf = parent.typeOf;
+        this.errors = new ArrayList<>();
     }
 
     private static String loc(Token t) {
@@ -38,16 +73,28 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
 
     @Override
     public Type visitProgram(MiniCParser.ProgramContext ctx) {
-        for (var child : ctx.children) visit(child);
+        if (pool == null) {
+            for (var child : ctx.children) visit(child);
+        } else {
+            List<ForkJoinTask<List<String>>> parts = new ArrayList<>();
+            for (var child : ctx.children) {
+                parts.add(pool.submit(() -> {
+                    TypeChecker w = new TypeChecker(this);
+                    w.visit(child);
+                    return w.errors;
+                }));
+            }
+            for (ForkJoinTask<List<String>> t : parts) errors.addAll(t.join());
+        }
 
         Symbol s = st.current().resolve("main");
         if (!(s instanceof FuncSymbol f)) {
-            st.error("0:0 falta la función de entrada: int main()");
+            error("0:0 falta la función de entrada: int main()");
         } else {
             if (f.type != Type.INT)
-                st.error("0:0 main debe ser de tipo int, se encontró " + f.type);
+                error("0:0 main debe ser de tipo int, se encontró " + f.type);
             if (!f.params.isEmpty())
-                st.error("0:0 main no debe recibir parámetros (se encontraron " + f.params.size() + ")");
+                error("0:0 main no debe recibir parámetros (se encontraron " + f.params.size() + ")");
         }
         return null;
     }
@@ -58,7 +105,7 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
         Symbol s = st.current().resolve(name);
         if (s instanceof FuncSymbol f) currentFunc = f;
         else {
-            st.error(loc(ctx.ID().getSymbol()) + " función no declarada correctamente: " + name);
+            error(loc(ctx.ID().getSymbol()) + " función no declarada correctamente: " + name);
             currentFunc = null;
         }
         visit(ctx.block());
@@ -77,7 +124,7 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
         Type found = Type.VOID;
         if (ctx.expr() != null) found = visit(ctx.expr());
         if (currentFunc != null && !Type.compatibleReturn(currentFunc.type, found)) {
-            st.error(loc(ctx.getStart()) + " return de tipo " + found +
+            error(loc(ctx.getStart()) + " return de tipo " + found +
                     " en función " + currentFunc.name + " de tipo " + currentFunc.type);
         }
         return null;
@@ -87,7 +134,7 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
     public Type visitSelectionStmt(MiniCParser.SelectionStmtContext ctx) {
         Type cond = visit(ctx.expr());
         if (!Type.isBooly(cond))
-            st.error(loc(ctx.getStart()) + " condición de if debe ser int/bool, se encontró " + cond);
+            error(loc(ctx.getStart()) + " condición de if debe ser int/bool, se encontró " + cond);
         visit(ctx.stmt(0));
         if (ctx.ELSE() != null) visit(ctx.stmt(1));
         return null;
@@ -97,7 +144,7 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
     public Type visitIterationStmt(MiniCParser.IterationStmtContext ctx) {
         Type cond = visit(ctx.expr());
         if (!Type.isBooly(cond))
-            st.error(loc(ctx.getStart()) + " condición de while debe ser int/bool, se encontró " + cond);
+            error(loc(ctx.getStart()) + " condición de while debe ser int/bool, se encontró " + cond);
         visit(ctx.stmt());
         return null;
     }
@@ -125,10 +172,10 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
             if (id.expr() != null) {
                 Type rhs = visit(id.expr());
                 if (isArray) {
-                    st.error(loc(d.ID().getSymbol()) + " no se permite inicializar arreglos directamente: " + d.ID().getText());
+                    error(loc(d.ID().getSymbol()) + " no se permite inicializar arreglos directamente: " + d.ID().getText());
                 } else {
                     if (!Type.assignmentCompatible(declared, rhs)) {
-                        st.error(loc(id.getStart()) + " tipo incompatible en init de " + name + ": " + declared + " = " + rhs);
+                        error(loc(id.getStart()) + " tipo incompatible en init de " + name + ": " + declared + " = " + rhs);
                     }
                 }
             }
@@ -142,7 +189,7 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
             Type lhsT = visit(ctx.lvalue());
             Type rhsT = visit(ctx.assignment());
             if (!Type.assignmentCompatible(lhsT, rhsT)) {
-                st.error(loc(ctx.ASSIGN().getSymbol()) + " asignación incompatible: " + lhsT + " = " + rhsT);
+                error(loc(ctx.ASSIGN().getSymbol()) + " asignación incompatible: " + lhsT + " = " + rhsT);
             }
             set(ctx, lhsT);
             return lhsT;
@@ -157,7 +204,7 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
         if (ctx.expr(1) != null) {
             Type cond = visit(ctx.expr(1));
             if (!Type.isBooly(cond)) {
-                st.error(loc(ctx.start) + " condición de for debe ser bool/int/char, se encontró: " + cond);
+                error(loc(ctx.start) + " condición de for debe ser bool/int/char, se encontró: " + cond);
             }
         }
         if (ctx.expr(2) != null) visit(ctx.expr(2)); // update
@@ -173,7 +220,7 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
         Symbol sym = (scope != null) ? scope.resolve(name) : null;
 
         if (!(sym instanceof VarSymbol v)) {
-            st.error(loc(ctx.ID().getSymbol()) + " variable no declarada: " + name);
+            error(loc(ctx.ID().getSymbol()) + " variable no declarada: " + name);
             return Type.INT;
         }
 
@@ -182,21 +229,21 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
         // escalar
         if (!v.isArray()) {
             if (idxCount > 0) {
-                st.error(loc(ctx.ID().getSymbol()) + " no puedes indexar un escalar: " + name);
+                error(loc(ctx.ID().getSymbol()) + " no puedes indexar un escalar: " + name);
             }
             return v.type;
         }
 
         // arreglo
         if (idxCount != v.rank()) {
-            st.error(loc(ctx.ID().getSymbol()) + " número de índices inválido en " + name +
+            error(loc(ctx.ID().getSymbol()) + " número de índices inválido en " + name +
                     " (tiene " + v.rank() + ", diste " + idxCount + ")");
         }
 
         for (var e : ctx.expr()) {
             Type ti = visit(e);
             if (!Type.isNumeric(ti)) {
-                st.error(loc(ctx.ID().getSymbol()) + " índice no numérico en " + name + ": " + ti);
+                error(loc(ctx.ID().getSymbol()) + " índice no numérico en " + name + ": " + ti);
             }
         }
 
@@ -216,12 +263,12 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
         }
         // si sí hay "||" validamos booly
         if (!Type.isBooly(left)) {
-            st.error(loc(ctx.getStart()) + " operador || requiere int/bool, se obtuvo " + left);
+            error(loc(ctx.getStart()) + " operador || requiere int/bool, se obtuvo " + left);
         }
         for (int i = 1; i < ctx.logicalAnd().size(); i++) {
             Type right = visit(ctx.logicalAnd(i));
             if (!Type.isBooly(right)) {
-                st.error(loc(ctx.getStart()) + " operador || requiere int/bool, se obtuvo " + right);
+                error(loc(ctx.getStart()) + " operador || requiere int/bool, se obtuvo " + right);
             }
         }
         set(ctx, Type.INT);
@@ -239,12 +286,12 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
             return left;
         }
         if (!Type.isBooly(left)) {
-            st.error(loc(ctx.getStart()) + " operador && requiere int/bool, se obtuvo " + left);
+            error(loc(ctx.getStart()) + " operador && requiere int/bool, se obtuvo " + left);
         }
         for (int i = 1; i < ctx.equality().size(); i++) {
             Type right = visit(ctx.equality(i));
             if (!Type.isBooly(right)) {
-                st.error(loc(ctx.getStart()) + " operador && requiere int/bool, se obtuvo " + right);
+                error(loc(ctx.getStart()) + " operador && requiere int/bool, se obtuvo " + right);
             }
         }
         set(ctx, Type.INT);
@@ -263,7 +310,7 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
         for (int i = 1; i < ctx.relational().size(); i++) {
             Type right = visit(ctx.relational(i));
             if (!Type.isBooly(left) || !Type.isBooly(right)) {
-                st.error(loc(ctx.getStart()) + " operador ==/!= requiere tipos compatibles");
+                error(loc(ctx.getStart()) + " operador ==/!= requiere tipos compatibles");
             }
             left = Type.INT;
         }
@@ -281,12 +328,12 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
             return left;
         }
         if (!Type.isNumeric(left)) {
-            st.error(loc(ctx.getStart()) + " operador relacional requiere int/char");
+            error(loc(ctx.getStart()) + " operador relacional requiere int/char");
         }
         for (int i = 1; i < ctx.additive().size(); i++) {
             Type right = visit(ctx.additive(i));
             if (!Type.isNumeric(right)) {
-                st.error(loc(ctx.getStart()) + " operador relacional requiere int/char");
+                error(loc(ctx.getStart()) + " operador relacional requiere int/char");
             }
         }
         set(ctx, Type.INT);
@@ -300,7 +347,7 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
         for (int i = 1; i < ctx.multiplicative().size(); i++) {
             Type r = visit(ctx.multiplicative(i));
             if (!Type.isNumeric(t) || !Type.isNumeric(r)) {
-                st.error(loc(ctx.getStart()) + " suma/resta requiere numéricos, se obtuvo " + t + " y " + r);
+                error(loc(ctx.getStart()) + " suma/resta requiere numéricos, se obtuvo " + t + " y " + r);
             }
             t = Type.INT;
         }
@@ -314,7 +361,7 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
         for (int i = 1; i < ctx.unary().size(); i++) {
             Type r = visit(ctx.unary(i));
             if (!Type.isNumeric(t) || !Type.isNumeric(r)) {
-                st.error(loc(ctx.getStart()) + " mul/div/mod requiere numéricos, se obtuvo " + t + " y " + r);
+                error(loc(ctx.getStart()) + " mul/div/mod requiere numéricos, se obtuvo " + t + " y " + r);
             }
             t = Type.INT;
         }
@@ -326,13 +373,13 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
     public Type visitUnary(MiniCParser.UnaryContext ctx) {
         if (ctx.NOT() != null) {
             Type t = visit(ctx.unary());
-            if (!Type.isBooly(t)) st.error(loc(ctx.NOT().getSymbol()) + " operador ! requiere int/bool");
+            if (!Type.isBooly(t)) error(loc(ctx.NOT().getSymbol()) + " operador ! requiere int/bool");
             set(ctx, Type.INT);
             return Type.INT;
         }
         if (ctx.MINUS() != null) {
             Type t = visit(ctx.unary());
-            if (t != Type.INT) st.error(loc(ctx.MINUS().getSymbol()) + " operador - requiere int");
+            if (t != Type.INT) error(loc(ctx.MINUS().getSymbol()) + " operador - requiere int");
             set(ctx, Type.INT);
             return Type.INT;
         }
@@ -370,22 +417,22 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
 
             // built-ins
             if ("println".equals(fname)) {
-                if (!argTypes.isEmpty()) st.error(loc(ctx.ID().getSymbol()) + " println no recibe argumentos");
+                if (!argTypes.isEmpty()) error(loc(ctx.ID().getSymbol()) + " println no recibe argumentos");
                 set(ctx, Type.VOID); return Type.VOID;
             }
             if ("printInt".equals(fname) || "print_int".equals(fname)) {
                 if (argTypes.size() != 1 || argTypes.get(0) != Type.INT)
-                    st.error(loc(ctx.ID().getSymbol()) + " " + fname + " espera (int)");
+                    error(loc(ctx.ID().getSymbol()) + " " + fname + " espera (int)");
                 set(ctx, Type.VOID); return Type.VOID;
             }
             if ("printChar".equals(fname) || "print_char".equals(fname)) {
                 boolean ok = argTypes.size() == 1 && (argTypes.get(0) == Type.CHAR || argTypes.get(0) == Type.INT);
-                if (!ok) st.error(loc(ctx.ID().getSymbol()) + " " + fname + " espera (char)");
+                if (!ok) error(loc(ctx.ID().getSymbol()) + " " + fname + " espera (char)");
                 set(ctx, Type.VOID); return Type.VOID;
             }
             if ("printString".equals(fname) || "print_str".equals(fname) || "print_str".equals(fname)) {
                 boolean ok = argTypes.size() == 1 && argTypes.get(0) == Type.STRING;
-                if (!ok) st.error(loc(ctx.ID().getSymbol()) + " " + fname + " espera (string)");
+                if (!ok) error(loc(ctx.ID().getSymbol()) + " " + fname + " espera (string)");
                 set(ctx, Type.VOID); return Type.VOID;
             }
 
@@ -398,7 +445,7 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
                 return fs.type;
             }
 
-            st.error(loc(ctx.ID().getSymbol()) + " función no declarada: " + fname);
+            error(loc(ctx.ID().getSymbol()) + " función no declarada: " + fname);
             set(ctx, Type.INT);
             return Type.INT;
         }
@@ -411,7 +458,7 @@ public class TypeChecker extends MiniCBaseVisitor<Type> {
 
             if (sym instanceof VarSymbol v) { set(ctx, v.type); return v.type; }
 
-            st.error(loc(ctx.ID().getSymbol()) + " identificador no es variable: " + name);
+            error(loc(ctx.ID().getSymbol()) + " identificador no es variable: " + name);
             set(ctx, Type.INT);
             return Type.INT;
         }